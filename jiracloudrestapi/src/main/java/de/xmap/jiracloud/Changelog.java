@@ -1,17 +1,37 @@
 package de.xmap.jiracloud;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+
 /**
  * Entry of issue history
  */
 public class Changelog {
+    private static final DateTimeFormatter JIRA_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
     private final String field;
     private final String from;
     private final String to;
+    private final Instant created;
+    private final String author;
 
     public Changelog(String field, String from, String to) {
+        this(field, from, to, null, null);
+    }
+
+    /**
+     * @param field -
+     * @param from old value
+     * @param to new value
+     * @param created time of change, can be null
+     * @param author display name of the user who made the change, can be null
+     */
+    public Changelog(String field, String from, String to, Instant created, String author) {
         this.field = field;
         this.from = from;
         this.to = to;
+        this.created = created;
+        this.author = author;
     }
 
     public String getField() {
@@ -31,4 +51,29 @@ public class Changelog {
     public String getTo() {
         return to;
     }
+
+    /**
+     * @return time of change, null if unknown
+     */
+    public Instant getCreated() {
+        return created;
+    }
+
+    /**
+     * @return display name of the user who made the change, null if unknown (e.g. anonymous or automation)
+     */
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * @param time Jira time, e.g. "2024-03-01T14:05:09.123+0100"
+     * @return null if time is null or empty
+     */
+    static Instant parseTime(String time) {
+        if (time == null || time.isEmpty()) {
+            return null;
+        }
+        return OffsetDateTime.parse(time, JIRA_TIME).toInstant();
+    }
 }
@@ -0,0 +1,52 @@
+package de.xmap.jiracloud;
+
+import java.util.List;
+
+/**
+ * Result of one request of a bulk operation, e.g. JiraCloudAccess.createFieldOptions(..., parallelism)
+ */
+public class ChunkResult {
+    private final int from;
+    private final List<String> items;
+    private final int status;
+    private final String error;
+
+    ChunkResult(int from, List<String> items, int status, String error) {
+        this.from = from;
+        this.items = items;
+        this.status = status;
+        this.error = error;
+    }
+
+    /**
+     * @return index of the first item of the chunk (0 based)
+     */
+    public int getFrom() {
+        return from;
+    }
+
+    /**
+     * @return items of the chunk, e.g. for retrying a failed chunk
+     */
+    public List<String> getItems() {
+        return items;
+    }
+
+    /**
+     * @return HTTP status
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return error response, null if ok
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isOk() {
+        return status < 300;
+    }
+}
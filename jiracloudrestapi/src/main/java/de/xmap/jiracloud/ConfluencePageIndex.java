@@ -0,0 +1,158 @@
+package de.xmap.jiracloud;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+
+import de.xmap.jiracloud.PageTitles.PageTitle;
+
+/**
+ * Confluence page titles by ID and by tiny link, saved to a JSON file between runs.
+ * The first refresh() loads all pages, further calls only the pages modified since the last refresh.
+ * Deleted pages stay in the index until rebuild().
+ */
+public class ConfluencePageIndex {
+    private static final Gson GSON = new Gson();
+    private final JiraCloudAccess jira;
+    private final Path file;
+    private final Map<String, PageTitle> byId = new HashMap<>();
+    private final Map<String, PageTitle> byTiny = new HashMap<>();
+    /** start time of last refresh, 0: never */
+    private long lastRefresh = 0;
+
+    private static class Data {
+        long lastRefresh;
+        List<PageTitle> pages;
+    }
+
+    /**
+     * Loads the index from file if it exists. Call refresh() to update it.
+     * @param jira -
+     * @param file JSON file
+     */
+    public ConfluencePageIndex(JiraCloudAccess jira, Path file) {
+        this.jira = jira;
+        this.file = file;
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                Data data = GSON.fromJson(reader, Data.class);
+                if (data != null && data.pages != null) {
+                    data.pages.forEach(this::put);
+                    lastRefresh = data.lastRefresh;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Loads all pages the first time, later only the pages modified since the last refresh (with one minute overlap).
+     * Saves the index.
+     * @return number of loaded pages
+     */
+    public synchronized int refresh() {
+        long start = System.currentTimeMillis();
+        List<PageTitle> pages;
+        if (lastRefresh == 0) {
+            pages = jira.loadAllConfluencePages().getPageTitles();
+        } else {
+            pages = jira.loadConfluencePagesModifiedSince(lastRefresh);
+        }
+        pages.forEach(this::put);
+        lastRefresh = start;
+        save();
+        return pages.size();
+    }
+
+    /**
+     * Clears the index and loads all pages. Removes deleted pages.
+     */
+    public synchronized void rebuild() {
+        byId.clear();
+        byTiny.clear();
+        lastRefresh = 0;
+        refresh();
+    }
+
+    private void put(PageTitle page) {
+        PageTitle old = byId.put(page.getId(), page);
+        if (old != null && old.getTiny() != null) {
+            byTiny.remove(old.getTiny());
+        }
+        if (page.getTiny() != null) {
+            byTiny.put(page.getTiny(), page);
+        }
+    }
+
+    public synchronized void save() {
+        Data data = new Data();
+        data.lastRefresh = lastRefresh;
+        data.pages = new ArrayList<>(byId.values());
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                GSON.toJson(data, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param id numeric page ID
+     * @return null if not in index
+     */
+    public synchronized PageTitle getById(String id) {
+        return byId.get(id);
+    }
+
+    /**
+     * @param tiny e.g. "/x/B4ANDQ"
+     * @return null if not in index
+     */
+    public synchronized PageTitle getByTiny(String tiny) {
+        return byTiny.get(tiny);
+    }
+
+    /**
+     * @param pURL Confluence page URL with page ID or tiny link
+     * @return page title, null if not found. Pages with ID missing in the index are loaded from Confluence.
+     */
+    public String getTitle(String pURL) {
+        String id = JiraCloudAccess.getConfluencePageId1(pURL);
+        if (id != null) {
+            PageTitle page = getById(id);
+            return page != null ? page.getTitle() : jira.loadConfluencePageTitleById(id);
+        }
+        id = JiraCloudAccess.getConfluencePageId2(pURL);
+        if (id != null) {
+            PageTitle page = getByTiny(id);
+            return page == null ? null : page.getTitle();
+        }
+        throw new IllegalArgumentException("Unsupported URL");
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * @return start time of last refresh (millis), 0 if never refreshed
+     */
+    public synchronized long getLastRefresh() {
+        return lastRefresh;
+    }
+}
@@ -0,0 +1,64 @@
+package de.xmap.jiracloud;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of JiraCloudAccess.syncFieldOptions()
+ */
+public class FieldOptionChanges {
+    private final List<String> created = new ArrayList<>();
+    private final List<FieldOption> enabled = new ArrayList<>();
+    private final List<FieldOption> disabled = new ArrayList<>();
+    private final List<FieldOption> deleted = new ArrayList<>();
+    private int requests = 0;
+
+    /**
+     * @return values of the created options
+     */
+    public List<String> getCreated() {
+        return created;
+    }
+
+    /**
+     * @return options that were disabled and are enabled now
+     */
+    public List<FieldOption> getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return options that are disabled now
+     */
+    public List<FieldOption> getDisabled() {
+        return disabled;
+    }
+
+    public List<FieldOption> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * @return number of write requests
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    void addRequests(int n) {
+        requests += n;
+    }
+
+    /**
+     * @return true if nothing had to be changed
+     */
+    public boolean isEmpty() {
+        return created.isEmpty() && enabled.isEmpty() && disabled.isEmpty() && deleted.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "created: " + created.size() + ", enabled: " + enabled.size() + ", disabled: " + disabled.size()
+                + ", deleted: " + deleted.size() + ", requests: " + requests;
+    }
+}
@@ -0,0 +1,132 @@
+package de.xmap.jiracloud;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plans the move requests to bring field options from the current order to the target order.
+ * The longest subsequence of options that are already in target order stays where it is.
+ * Each run of other options that are consecutive in the target order is moved with one request
+ * (split into chunks of 1000) after its predecessor, or to the first position.
+ */
+public class FieldOptionMoves {
+    private static final int MAX_IDS = 1000;
+
+    /**
+     * One call of JiraCloudAccess.moveFieldOptions()
+     */
+    public static class Move {
+        private final List<String> ids;
+        private final String actionFieldName;
+        private final String actionValue;
+
+        Move(List<String> ids, String actionFieldName, String actionValue) {
+            this.ids = ids;
+            this.actionFieldName = actionFieldName;
+            this.actionValue = actionValue;
+        }
+
+        public List<String> getIds() {
+            return ids;
+        }
+
+        /**
+         * @return "after" or "position"
+         */
+        public String getActionFieldName() {
+            return actionFieldName;
+        }
+
+        /**
+         * @return option ID or "First"
+         */
+        public String getActionValue() {
+            return actionValue;
+        }
+    }
+
+    private FieldOptionMoves() {
+    }
+
+    /**
+     * @param currentIds option IDs in current order
+     * @param targetIds option IDs in target order. Unknown IDs are ignored. Current options missing here stay behind the target options.
+     * @return moves to be executed in this order, empty if the order is already right
+     */
+    public static List<Move> plan(List<String> currentIds, List<String> targetIds) {
+        Set<String> current = new HashSet<>(currentIds);
+        Set<String> t = new LinkedHashSet<>();
+        for (String id : targetIds) {
+            if (current.contains(id)) {
+                t.add(id);
+            }
+        }
+        t.addAll(currentIds);
+        List<String> target = new ArrayList<>(t);
+        Map<String, Integer> rank = new HashMap<>();
+        for (int i = 0; i < target.size(); i++) {
+            rank.put(target.get(i), i);
+        }
+        int[] ranks = currentIds.stream().mapToInt(rank::get).toArray();
+        Set<String> stable = new HashSet<>();
+        for (int i : longestIncreasingSubsequence(ranks)) {
+            stable.add(currentIds.get(i));
+        }
+
+        List<Move> ret = new ArrayList<>();
+        for (int i = 0; i < target.size(); ) {
+            if (stable.contains(target.get(i))) {
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < target.size() && !stable.contains(target.get(end))) {
+                end++;
+            }
+            String predecessor = i == 0 ? null : target.get(i - 1);
+            for (int j = i; j < end; j += MAX_IDS) {
+                List<String> ids = target.subList(j, Math.min(j + MAX_IDS, end));
+                ret.add(predecessor == null ? new Move(ids, "position", "First") : new Move(ids, "after", predecessor));
+                predecessor = ids.get(ids.size() - 1);
+            }
+            i = end;
+        }
+        return ret;
+    }
+
+    /**
+     * @param a -
+     * @return indexes of a longest strictly increasing subsequence of a, ascending
+     */
+    static int[] longestIncreasingSubsequence(int[] a) {
+        int[] tails = new int[a.length]; // index of smallest tail of subsequence with length k+1
+        int[] previous = new int[a.length];
+        int length = 0;
+        for (int i = 0; i < a.length; i++) {
+            int lo = 0, hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (a[tails[mid]] < a[i]) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            previous[i] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = i;
+            if (lo == length) {
+                length++;
+            }
+        }
+        int[] ret = new int[length];
+        for (int k = length - 1, i = length > 0 ? tails[length - 1] : -1; k >= 0; k--, i = previous[i]) {
+            ret[k] = i;
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,101 @@
+package de.xmap.jiracloud;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import kong.unirest.json.JSONArray;
+import kong.unirest.json.JSONObject;
+
+/**
+ * Compiled JSON Pointer (e.g. "/fields/status/name") for IssueAccess. The path is parsed once.
+ * get() walks the JSON tree without string parsing and without exceptions.
+ */
+public final class FieldPath {
+    private static final int MAX_CACHED = 1000;
+    private static final Map<String, FieldPath> CACHE = new ConcurrentHashMap<>();
+    private final String path;
+    private final String[] names;
+    /** array index of segment, -1 if segment is not a number */
+    private final int[] indexes;
+
+    private FieldPath(String path) {
+        this.path = path;
+        if (!path.startsWith("/")) { // invalid pointer: never matches, as text() has always returned null for it
+            names = null;
+            indexes = null;
+            return;
+        }
+        names = path.substring(1).split("/", -1);
+        indexes = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = names[i].replace("~1", "/").replace("~0", "~");
+            indexes[i] = index(names[i]);
+        }
+    }
+
+    /**
+     * @param path JSON Pointer, e.g. "/fields/status/name". A path not starting with '/' is accepted,
+     * but get() and text() return null for it.
+     * @return compiled path, cached
+     */
+    public static FieldPath of(String path) {
+        FieldPath ret = CACHE.get(path);
+        if (ret == null) {
+            ret = new FieldPath(path);
+            if (CACHE.size() < MAX_CACHED) {
+                CACHE.put(path, ret);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param jo -
+     * @return value (JSONObject, JSONArray, String, Number, Boolean), null if path does not exist or value is null
+     */
+    public Object get(JSONObject jo) {
+        if (names == null) {
+            return null;
+        }
+        Object ret = jo;
+        for (int i = 0; i < names.length && ret != null; i++) {
+            if (ret instanceof JSONObject o) {
+                ret = o.opt(names[i]);
+            } else if (ret instanceof JSONArray a && indexes[i] >= 0) {
+                ret = a.opt(indexes[i]);
+            } else {
+                return null;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param jo -
+     * @return text, null if path does not exist or is not a text
+     */
+    public String text(JSONObject jo) {
+        return get(jo) instanceof String s ? s : null;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private static int index(String name) {
+        if (name.isEmpty() || name.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(name);
+    }
+}
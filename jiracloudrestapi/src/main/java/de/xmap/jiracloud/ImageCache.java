@@ -0,0 +1,302 @@
+package de.xmap.jiracloud;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Persistent image cache for JiraCloudAccess.loadImage(), see JiraCloudAccess.setImageCache().
+ * The image data is stored content-addressed (file name is the SHA-256 of the content),
+ * so the same image for different src is stored once. The index maps src to content hash and
+ * the ETag/Last-Modified values for conditional revalidation.
+ * If the total size exceeds maxBytes, the least recently used entries are removed. Images that are being read
+ * are deleted after reading.
+ * The index is saved after every SAVE_INTERVAL changes. Call save() at the end for persisting all changes and the LRU order.
+ */
+public class ImageCache {
+    private static final String INDEX = "index.json";
+    private static final int SAVE_INTERVAL = 50;
+    private final Path dir;
+    private final long maxBytes;
+    /** key: src, in access order */
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    /** key: hash, value: number of index entries with that hash */
+    private final Map<String, Integer> refs = new HashMap<>();
+    /** key: hash, value: number of readers, see get(), put() and read() */
+    private final Map<String, Integer> pins = new HashMap<>();
+    /** size of all images (each hash once) */
+    private long totalBytes = 0;
+    private int unsaved = 0;
+
+    /**
+     * @param dir cache folder, will be created
+     * @param maxBytes max size of all images
+     */
+    public ImageCache(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(dir);
+            Path file = dir.resolve(INDEX);
+            if (Files.exists(file)) {
+                try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    java.lang.reflect.Type type = new TypeToken<LinkedHashMap<String, Entry>>() {}.getType();
+                    Map<String, Entry> loaded = new Gson().fromJson(r, type);
+                    if (loaded != null) {
+                        loaded.forEach((src, entry) -> {
+                            if (Files.exists(blob(entry.hash))) {
+                                add(src, entry);
+                            }
+                        });
+                    }
+                }
+            }
+            // images and temp files not in index, e.g. index has not been saved before exit
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path f : files.collect(Collectors.toList())) {
+                    String name = f.getFileName().toString();
+                    if ((name.endsWith(".img") && !refs.containsKey(name.substring(0, name.length() - ".img".length())))
+                            || (name.startsWith("img") && name.endsWith(".tmp"))) {
+                        Files.deleteIfExists(f);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param src -
+     * @return pinned cache entry or null, marks entry as recently used. Call read() or release().
+     */
+    synchronized Entry get(String src) {
+        Entry ret = index.get(src);
+        if (ret != null && !Files.exists(blob(ret.hash))) {
+            index.remove(src);
+            unref(ret);
+            return null;
+        }
+        if (ret != null) {
+            pin(ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Reads the image file of a pinned entry and releases the entry.
+     * @param <T> -
+     * @param entry pinned entry from get() or put()
+     * @param reader reads the image file, must not modify it
+     * @return result of reader
+     */
+    <T> T read(Entry entry, BlobReader<T> reader) {
+        try {
+            return reader.read(blob(entry.hash));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * Releases a pinned entry. Its image file is deleted if it has been evicted meanwhile.
+     * @param entry pinned entry from get() or put()
+     */
+    synchronized void release(Entry entry) {
+        if (pins.merge(entry.hash, -1, Integer::sum) <= 0) {
+            pins.remove(entry.hash);
+            if (!refs.containsKey(entry.hash)) {
+                delete(entry.hash);
+            }
+        }
+    }
+
+    interface BlobReader<T> {
+        T read(Path file) throws IOException;
+    }
+
+    /**
+     * Copies the stream to the cache. The new entry is never evicted by this call, even if it is larger than maxBytes.
+     * @param src -
+     * @param in image data
+     * @param etag ETag response header, can be null
+     * @param lastModified Last-Modified response header, can be null
+     * @return pinned cache entry, call read() or release()
+     */
+    Entry put(String src, InputStream in, String etag, String lastModified) {
+        Entry entry = new Entry();
+        entry.etag = etag;
+        entry.lastModified = lastModified;
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(dir, "img", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                entry.size = in.transferTo(out);
+            }
+            entry.hash = HexFormat.of().formatHex(digest.digest());
+            synchronized (this) {
+                Path blob = blob(entry.hash);
+                if (Files.exists(blob)) {
+                    Files.delete(temp);
+                } else {
+                    Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+                }
+                temp = null;
+                add(src, entry);
+                pin(entry);
+                evict(src);
+                changed();
+            }
+            return entry;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Image has not been changed (HTTP 304), take over new validators.
+     */
+    synchronized void revalidated(String src, Entry entry, String etag, String lastModified) {
+        if (etag != null) {
+            entry.etag = etag;
+        }
+        if (lastModified != null) {
+            entry.lastModified = lastModified;
+        }
+        changed();
+    }
+
+    /**
+     * @return total size of all cached images
+     */
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    public synchronized void clear() {
+        List<Entry> entries = new ArrayList<>(index.values());
+        index.clear();
+        entries.forEach(this::unref);
+        save();
+    }
+
+    /**
+     * Persist index
+     */
+    public synchronized void save() {
+        try {
+            Path temp = dir.resolve(INDEX + ".tmp");
+            try (Writer w = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                new Gson().toJson(index, w);
+            }
+            Files.move(temp, dir.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            unsaved = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Removes least recently used entries until the total size is not larger than maxBytes.
+     * @param keep src of the entry that must not be removed
+     */
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Entry>> iter = index.entrySet().iterator(); // least recently used first
+        while (totalBytes > maxBytes && iter.hasNext()) {
+            Map.Entry<String, Entry> e = iter.next();
+            if (!e.getKey().equals(keep)) {
+                iter.remove();
+                unref(e.getValue());
+            }
+        }
+    }
+
+    private void add(String src, Entry entry) {
+        if (refs.merge(entry.hash, 1, Integer::sum) == 1) {
+            totalBytes += entry.size;
+        }
+        Entry old = index.put(src, entry);
+        if (old != null) {
+            unref(old);
+        }
+    }
+
+    /**
+     * Entry has been removed from index. Deletes the image file if no other entry has the same hash and nobody reads it.
+     */
+    private void unref(Entry entry) {
+        if (refs.merge(entry.hash, -1, Integer::sum) <= 0) {
+            refs.remove(entry.hash);
+            totalBytes -= entry.size;
+            if (!pins.containsKey(entry.hash)) {
+                delete(entry.hash);
+            }
+        }
+    }
+
+    private void pin(Entry entry) {
+        pins.merge(entry.hash, 1, Integer::sum);
+    }
+
+    private void changed() {
+        if (++unsaved >= SAVE_INTERVAL) {
+            save();
+        }
+    }
+
+    private void delete(String hash) {
+        try {
+            Files.deleteIfExists(blob(hash));
+        } catch (IOException ignore) {
+        }
+    }
+
+    private Path blob(String hash) {
+        return dir.resolve(hash + ".img");
+    }
+
+    static class Entry {
+        String hash;
+        long size;
+        String etag;
+        String lastModified;
+
+        boolean canRevalidate() {
+            return etag != null || lastModified != null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package de.xmap.jiracloud;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import de.xmap.jiracloud.JiraCloudAccess.IssueAccess;
+
+/**
+ * Issues of a query, keyed by issue key. If there are more than maxSize issues, the least recently used are removed.
+ * sync() loads all issues the first time, later only the issues changed since the last sync.
+ */
+public class IssueCache {
+    private final JiraCloudAccess jira;
+    private final IssueQuery query;
+    private final LinkedHashMap<String, IssueAccess> issues;
+    /** start time of last sync, 0: never synchronized */
+    private volatile long lastSync = 0;
+    /** one sync() at a time, get() is not blocked by a running sync() */
+    private final Object syncLock = new Object();
+
+    /**
+     * @param jira -
+     * @param query issues to cache, fields should contain "updated"
+     * @param maxSize max number of issues
+     */
+    public IssueCache(JiraCloudAccess jira, IssueQuery query, int maxSize) {
+        this.jira = jira;
+        this.query = query;
+        issues = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IssueAccess> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * First call loads all issues of the query. Further calls load only the issues updated since the last sync
+     * (with one minute overlap) and update the cached issues that have changed.
+     * Concurrent calls are executed one after the other.
+     * @return new and changed issues
+     */
+    public List<IssueAccess> sync() {
+        synchronized (syncLock) {
+            long start = System.currentTimeMillis();
+            List<IssueAccess> ret = new ArrayList<>();
+            try (Stream<IssueAccess> stream = jira.streamAllIssues(query.updatedSince(lastSync), i -> i)) {
+                stream.forEach(issue -> {
+                    if (put(issue)) {
+                        ret.add(issue);
+                    }
+                });
+            }
+            lastSync = start;
+            return ret;
+        }
+    }
+
+    /**
+     * @param issue -
+     * @return true if issue is new or has changed
+     */
+    private synchronized boolean put(IssueAccess issue) {
+        IssueAccess cached = issues.get(issue.getKey());
+        if (cached == null) {
+            issues.put(issue.getKey(), issue);
+            return true;
+        } else if (!Objects.equals(cached.getUpdated(), issue.getUpdated()) || cached.getUpdated() == null) {
+            cached.updateFrom(issue);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param key issue key
+     * @return cached issue or null
+     */
+    public synchronized IssueAccess get(String key) {
+        return issues.get(key);
+    }
+
+    /**
+     * @param key issue key
+     * @return cached issue, loaded if not in cache (e.g. because it has been removed), null if it does not exist.
+     * Throws RuntimeException if Jira can not be accessed.
+     */
+    public IssueAccess load(String key) {
+        IssueAccess ret = get(key);
+        if (ret == null) {
+            ret = jira.loadIssue(key, query); // other errors than 404 are thrown
+            if (ret != null) {
+                put(ret);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @return cached issues, from least to most recently used
+     */
+    public synchronized List<IssueAccess> getIssues() {
+        return new ArrayList<>(issues.values());
+    }
+
+    public synchronized int size() {
+        return issues.size();
+    }
+
+    /**
+     * Next sync() loads all issues.
+     */
+    public synchronized void clear() {
+        issues.clear();
+        lastSync = 0;
+    }
+
+    /**
+     * @return start time of the last sync (millis), 0 if not synchronized yet
+     */
+    public long getLastSync() {
+        return lastSync;
+    }
+}
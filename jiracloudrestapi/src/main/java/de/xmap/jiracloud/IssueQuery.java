@@ -0,0 +1,119 @@
+package de.xmap.jiracloud;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * JQL search with field projection. Only the fields added with fields() are requested.
+ * Wrappers declare their fields with fieldnamesForQueryExtension(), e.g.
+ * <pre>new IssueQuery(jql).fields(ReleaseTicket.fieldnamesForQueryExtension())</pre>
+ * Without fields all fields are requested (*all).
+ */
+public class IssueQuery {
+    private final String jql;
+    private final Set<String> fields = new LinkedHashSet<>();
+    private final Set<String> expand = new LinkedHashSet<>();
+    private int maxResults = 0;
+
+    public IssueQuery(String jql) {
+        this.jql = jql;
+    }
+
+    /**
+     * @param fieldnames field names, each can be a comma separated list
+     * @return this
+     */
+    public IssueQuery fields(String... fieldnames) {
+        for (String f : fieldnames) {
+            for (String i : f.split(",")) {
+                if (!i.isBlank()) {
+                    fields.add(i.trim());
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param name e.g. "renderedFields"
+     * @return this
+     */
+    public IssueQuery expand(String name) {
+        expand.add(name);
+        return this;
+    }
+
+    /**
+     * Requests the HTML of the rich text fields in the same search, so IssueAccess.doc() needs no extra request.
+     * @return this
+     */
+    public IssueQuery renderedFields() {
+        return expand("renderedFields");
+    }
+
+    /**
+     * @param maxResults page size, 0: default
+     * @return this
+     */
+    public IssueQuery maxResults(int maxResults) {
+        this.maxResults = maxResults;
+        return this;
+    }
+
+    /**
+     * @param otherJql -
+     * @return new query with other JQL and same fields, expand and maxResults
+     */
+    public IssueQuery withJql(String otherJql) {
+        IssueQuery ret = new IssueQuery(otherJql);
+        ret.fields.addAll(fields);
+        ret.expand.addAll(expand);
+        ret.maxResults = maxResults;
+        return ret;
+    }
+
+    /**
+     * @param lastSync start time of the last sync (millis), 0: never synchronized
+     * @return this if never synchronized, otherwise new query for the issues updated since lastSync (with one minute overlap)
+     */
+    public IssueQuery updatedSince(long lastSync) {
+        if (lastSync <= 0) {
+            return this;
+        }
+        return withJql(JqlShards.restrict(jql, "updated >= \"-" + minutesSince(lastSync) + "m\""));
+    }
+
+    /**
+     * Delta queries use relative dates like "-5m" in JQL and CQL, so the time zone of the user does not matter.
+     * @param time millis
+     * @return minutes since time, plus one minute overlap
+     */
+    static long minutesSince(long time) {
+        return (System.currentTimeMillis() - time) / 60_000 + 1;
+    }
+
+    public String getJql() {
+        return jql;
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return query extension for JiraCloudAccess.loadAllIssues()
+     */
+    public String toQueryExtension() {
+        String ret = "";
+        if (!fields.isEmpty()) {
+            ret += "&fields=" + JiraCloudAccess.urlEncode(String.join(",", fields), "");
+        }
+        if (!expand.isEmpty()) {
+            ret += "&expand=" + JiraCloudAccess.urlEncode(String.join(",", expand), "");
+        }
+        if (maxResults > 0) {
+            ret += "&maxResults=" + maxResults;
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,269 @@
+package de.xmap.jiracloud;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import kong.unirest.json.JSONObject;
+
+/**
+ * On-disk snapshot of the issue JSON of one query for warm restarts, see JiraCloudAccess.loadAllIssues(IssueQuery, IssueSnapshotStore, Function).
+ * issues.log is an append-only log of issue JSON. issues.idx is an append-only index (key, offset, length)
+ * that is read into memory on open. The last entry of a key wins. setLastSync() forces log and index to disk first,
+ * so a persisted lastSync never is newer than the persisted issues. Call compact() from time to time to remove old versions.
+ */
+public class IssueSnapshotStore implements AutoCloseable {
+    private static final String LOG = "issues.log";
+    private static final String INDEX = "issues.idx";
+    private static final String STATE = "snapshot.properties";
+    private final Path dir;
+    private FileChannel log;
+    private FileChannel index;
+    /** key: issue key, value: offset and length in log */
+    private final Map<String, long[]> positions = new LinkedHashMap<>();
+    private long lastSync = 0;
+
+    /**
+     * @param dir folder for the snapshot files, will be created
+     */
+    public IssueSnapshotStore(Path dir) {
+        this.dir = dir;
+        try {
+            Files.createDirectories(dir);
+            open();
+            Path state = dir.resolve(STATE);
+            if (Files.exists(state)) {
+                Properties p = new Properties();
+                try (InputStream in = Files.newInputStream(state)) {
+                    p.load(in);
+                }
+                lastSync = Long.parseLong(p.getProperty("lastSync", "0"));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void open() throws IOException {
+        log = FileChannel.open(dir.resolve(LOG), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(dir.resolve(INDEX), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        positions.clear();
+        long size = index.size();
+        if (size == 0) {
+            return;
+        }
+        long logSize = log.size();
+        // read, not mapped: the entries are copied into positions anyway and a mapping would block truncate and move on Windows
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        while (buf.hasRemaining() && index.read(buf, buf.position()) >= 0) {
+        }
+        buf.flip();
+        int valid = 0;
+        while (buf.remaining() >= 2) {
+            int keyLength = buf.getShort() & 0xFFFF;
+            if (buf.remaining() < keyLength + 12) {
+                break; // incomplete entry
+            }
+            byte[] key = new byte[keyLength];
+            buf.get(key);
+            long offset = buf.getLong();
+            int length = buf.getInt();
+            if (offset + length > logSize) {
+                break; // log entry has not been written completely
+            }
+            positions.put(new String(key, StandardCharsets.UTF_8), new long[] { offset, length });
+            valid = buf.position();
+        }
+        if (valid < size) { // e.g. crash while writing
+            index.truncate(valid);
+        }
+    }
+
+    /**
+     * Appends the issue JSON.
+     * @param issue -
+     */
+    public void put(JiraCloudAccess.IssueAccess issue) {
+        put(issue.getKey(), issue.getJSONObject());
+    }
+
+    public synchronized void put(String key, JSONObject issue) {
+        byte[] data = issue.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        try {
+            long offset = log.size();
+            write(log, ByteBuffer.wrap(data), offset);
+            ByteBuffer entry = ByteBuffer.allocate(2 + k.length + 12);
+            entry.putShort((short) k.length).put(k).putLong(offset).putInt(data.length).flip();
+            write(index, entry, index.size());
+            positions.put(key, new long[] { offset, data.length });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param key issue key
+     * @return issue JSON or null
+     */
+    public synchronized JSONObject get(String key) {
+        long[] pos = positions.get(key);
+        return pos == null ? null : read(pos);
+    }
+
+    public synchronized List<String> getKeys() {
+        return new ArrayList<>(positions.keySet());
+    }
+
+    public synchronized int size() {
+        return positions.size();
+    }
+
+    /**
+     * Reads one issue after the other.
+     * @param consumer -
+     */
+    public void forEach(Consumer<JSONObject> consumer) {
+        List<long[]> list;
+        synchronized (this) {
+            list = new ArrayList<>(positions.values());
+        }
+        for (long[] pos : list) {
+            JSONObject issue;
+            synchronized (this) {
+                issue = read(pos);
+            }
+            consumer.accept(issue);
+        }
+    }
+
+    /**
+     * @return start time of the last sync (millis), 0 if never synchronized
+     */
+    public synchronized long getLastSync() {
+        return lastSync;
+    }
+
+    /**
+     * Forces log and index to disk and then saves lastSync.
+     * @param lastSync start time of the sync (millis)
+     */
+    public synchronized void setLastSync(long lastSync) {
+        try {
+            log.force(false);
+            index.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.lastSync = lastSync;
+        Properties p = new Properties();
+        p.setProperty("lastSync", Long.toString(lastSync));
+        try {
+            Path temp = dir.resolve(STATE + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                p.store(out, null);
+            }
+            Files.move(temp, dir.resolve(STATE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rewrites the log with the latest version of each issue only.
+     */
+    public synchronized void compact() {
+        Path newLog = dir.resolve(LOG + ".tmp");
+        Path newIndex = dir.resolve(INDEX + ".tmp");
+        try {
+            try (FileChannel l = FileChannel.open(newLog, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    FileChannel i = FileChannel.open(newIndex, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long offset = 0;
+                long indexOffset = 0;
+                for (Map.Entry<String, long[]> e : positions.entrySet()) {
+                    ByteBuffer data = ByteBuffer.allocate((int) e.getValue()[1]);
+                    readFully(data, e.getValue()[0]);
+                    data.flip();
+                    write(l, data, offset);
+                    byte[] k = e.getKey().getBytes(StandardCharsets.UTF_8);
+                    ByteBuffer entry = ByteBuffer.allocate(2 + k.length + 12);
+                    entry.putShort((short) k.length).put(k).putLong(offset).putInt((int) e.getValue()[1]).flip();
+                    write(i, entry, indexOffset);
+                    indexOffset += entry.limit();
+                    offset += e.getValue()[1];
+                }
+                l.force(true);
+                i.force(true);
+            }
+            close();
+            // not atomic across both files: after a crash right here clear() the store
+            Files.move(newLog, dir.resolve(LOG), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(newIndex, dir.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Removes all issues, next sync will be a full load.
+     */
+    public synchronized void clear() {
+        try {
+            log.truncate(0);
+            index.truncate(0);
+            positions.clear();
+            setLastSync(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            log.close();
+            index.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JSONObject read(long[] pos) {
+        ByteBuffer buf = ByteBuffer.allocate((int) pos[1]);
+        try {
+            readFully(buf, pos[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new JSONObject(new String(buf.array(), StandardCharsets.UTF_8));
+    }
+
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            if (log.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Unexpected end of " + LOG);
+            }
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += channel.write(buf, position);
+        }
+    }
+}
@@ -1,21 +1,59 @@
 package de.xmap.jiracloud;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 import de.xmap.jiracloud.Issue.FixVersion;
 import de.xmap.jiracloud.Issue.Project;
@@ -24,11 +62,14 @@ import de.xmap.jiracloud.Issue.Version;
 import de.xmap.jiracloud.PageTitles.PageTitle;
 import de.xmap.jiracloud.Pages.ConfluencePage;
 import de.xmap.jiracloud.Ticket2.Subticket;
+import kong.unirest.Config;
+import kong.unirest.HttpRequest;
 import kong.unirest.HttpResponse;
 import kong.unirest.JsonNode;
-import kong.unirest.Unirest;
+import kong.unirest.UnirestInstance;
 import kong.unirest.json.JSONArray;
 import kong.unirest.json.JSONObject;
+import kong.unirest.json.JSONPointerException;
 
 public class JiraCloudAccess {
 	public static String cf_developmentDescription = "customfield_10053";
@@ -44,11 +85,40 @@ public class JiraCloudAccess {
 	public static String cf_minervaGtc = "customfield_10175";
 	/** context ID */
 	public static final String CID = "10287";
+	private static final int MAX_ATTEMPTS = 6;
+	/** max issues per bulk changelog request */
+	private static final int BULK_CHANGELOG_SIZE = 1000;
+	/** max keys per "key in (...)" search */
+	private static final int KEYS_PER_SEARCH = 100;
+	/** max parallel requests for the pages of a startAt/maxResults endpoint */
+	private static final int PAGE_WORKERS = 4;
+	private static final FieldPath[] COMMON_FIELDS = { FieldPath.of("/key"), FieldPath.of("/fields/summary"),
+			FieldPath.of("/fields/status/name"), FieldPath.of("/fields/resolution/name"), FieldPath.of("/fields/issuetype/name"),
+			FieldPath.of("/fields/created"), FieldPath.of("/fields/updated") };
+	private static final int KEY = 0, SUMMARY = 1, STATUS = 2, RESOLUTION = 3, ISSUETYPE = 4, CREATED = 5, UPDATED = 6;
+	private static final FieldPath REPORTER = FieldPath.of("/fields/reporter/displayName");
+	private static final FieldPath ASSIGNEE = FieldPath.of("/fields/assignee/displayName");
+	private static final Object UNRESOLVED = new Object();
+	private static final Gson GSON = new Gson();
+	private static final Gson PRETTY_GSON = new GsonBuilder().setPrettyPrinting().create();
+	private static final TypeAdapter<Issue> ISSUE = GSON.getAdapter(Issue.class);
+	private static final TypeAdapter<Project> PROJECT = GSON.getAdapter(Project.class);
+	private static final TypeAdapter<ArrayList<Version>> VERSIONS = GSON.getAdapter(new TypeToken<ArrayList<Version>>() {});
+	private static final TypeAdapter<Pages> PAGES = GSON.getAdapter(Pages.class);
+	private static final TypeAdapter<ConfluencePage> CONFLUENCE_PAGE = GSON.getAdapter(ConfluencePage.class);
 
+	private static UnirestInstance sharedHttpClient;
 	private final String url;
     private final String auth;
+    private final UnirestInstance http;
+    /** headers for requests without body */
+    private final Map<String, String> jsonHeaders;
+    /** headers for requests with JSON body */
+    private final Map<String, String> jsonBodyHeaders;
     private boolean debugMode = false;
     private boolean showAccess = false;
+    private ImageCache imageCache;
+    private RateLimiter rateLimiter = new RateLimiter();
     public String lastError;
 	
     /**
@@ -57,6 +127,16 @@ public class JiraCloudAccess {
      * @param customer Jira Cloud customer
      */
     public JiraCloudAccess(String mail, String token, String customer) {
+        this(mail, token, customer, sharedHttpClient());
+    }
+
+    /**
+     * @param mail mail address for Jira Cloud login
+     * @param token token for Jira Cloud login
+     * @param customer Jira Cloud customer
+     * @param http HTTP client, see createHttpClient(). It can be shared by several JiraCloudAccess instances.
+     */
+    public JiraCloudAccess(String mail, String token, String customer, UnirestInstance http) {
         if (customer == null || customer.isBlank()) {
             throw new IllegalArgumentException("Please specify customer");
         } else if (mail == null || !mail.contains("@")) {
@@ -66,6 +146,35 @@ public class JiraCloudAccess {
         }
         url = "https://" + customer + ".atlassian.net";
         auth = "Basic " + Base64.getEncoder().encodeToString((mail + ":" + token).getBytes());
+        this.http = http;
+        jsonHeaders = Map.of("Accept", "application/json", "Authorization", auth);
+        jsonBodyHeaders = Map.of("Accept", "application/json", "Content-type", "application/json", "Authorization", auth);
+    }
+
+    /**
+     * Creates a HTTP client with connection pool and keep-alive.
+     * @param maxConnections size of connection pool, all connections go to the same host
+     * @param connectTimeout -
+     * @param readTimeout max time between two data packets
+     * @return HTTP client, can be shared by several JiraCloudAccess instances
+     */
+    public static UnirestInstance createHttpClient(int maxConnections, Duration connectTimeout, Duration readTimeout) {
+        Config config = new Config()
+                .concurrency(maxConnections, maxConnections)
+                .connectTimeout((int) connectTimeout.toMillis())
+                .socketTimeout((int) readTimeout.toMillis())
+                .connectionTTL(Duration.ofMinutes(5)); // reuse keep-alive connections for 5 minutes
+        return new UnirestInstance(config);
+    }
+
+    /**
+     * @return HTTP client used by JiraCloudAccess instances created without HTTP client
+     */
+    public static synchronized UnirestInstance sharedHttpClient() {
+        if (sharedHttpClient == null) {
+            sharedHttpClient = createHttpClient(50, Duration.ofSeconds(10), Duration.ofSeconds(60));
+        }
+        return sharedHttpClient;
     }
     
     /**
@@ -78,57 +187,176 @@ public class JiraCloudAccess {
     public <T> List<T> loadAllIssues(String jql, String queryExtension, Function<IssueAccess, T> creator) {
         List<T> ret = new ArrayList<>();
         Issues<T> issues = null;
+        queryExtension = searchQueryExtension(queryExtension);
+		do {
+			var paging = issues != null && issues.nextPageToken != null ? "&nextPageToken=" + issues.nextPageToken : "";
+			issues = _loadIssues(jql, queryExtension + paging, creator);
+			ret.addAll(issues.list);
+		} while (issues.nextPageToken != null);
+        return ret;
+    }
+
+    /**
+     * @param <T> -
+     * @param query JQL with projected fields
+     * @param creator -
+     * @return issues
+     */
+    public <T> List<T> loadAllIssues(IssueQuery query, Function<IssueAccess, T> creator) {
+        return loadAllIssues(query.getJql(), query.toQueryExtension(), creator);
+    }
+
+    /**
+     * Warm restart: loads only the issues updated since the last sync of the store (with one minute overlap),
+     * appends them to the store and returns all issues of the store. The first call loads all issues.
+     * Use one store per query. Issues that have been deleted or no longer match the JQL stay in the store, call store.clear() for a full reload.
+     * @param <T> -
+     * @param query JQL with projected fields
+     * @param store snapshot of the issues of the query
+     * @param creator -
+     * @return issues of the store, in order of first appearance
+     */
+    public <T> List<T> loadAllIssues(IssueQuery query, IssueSnapshotStore store, Function<IssueAccess, T> creator) {
+        long start = System.currentTimeMillis();
+        try (Stream<IssueAccess> stream = streamAllIssues(query.updatedSince(store.getLastSync()), i -> i)) {
+            stream.forEach(store::put);
+        }
+        store.setLastSync(start);
+        List<T> ret = new ArrayList<>(store.size());
+        store.forEach(issue -> ret.add(creator.apply(new IssueAccess(issue))));
+        return ret;
+    }
+
+    /**
+     * @param <T> -
+     * @param query JQL with projected fields
+     * @param creator -
+     * @return issues, sequential and ordered
+     */
+    public <T> Stream<T> streamAllIssues(IssueQuery query, Function<IssueAccess, T> creator) {
+        return streamAllIssues(query.getJql(), query.toQueryExtension(), creator);
+    }
+
+    /**
+     * Lazy variant of loadAllIssues(). The next page is requested only when the consumer reaches the end of the
+     * current page. Consumed pages are not referenced anymore, so memory usage is about one page.
+     * @param <T> -
+     * @param jql -
+     * @param queryExtension -
+     * @param creator -
+     * @return issues, sequential and ordered
+     */
+    public <T> Stream<T> streamAllIssues(String jql, String queryExtension, Function<IssueAccess, T> creator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterateAllIssues(jql, queryExtension, creator), Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Lazy variant of loadAllIssues(), see streamAllIssues()
+     * @param <T> -
+     * @param jql -
+     * @param queryExtension -
+     * @param creator -
+     * @return issue iterator
+     */
+    public <T> Iterator<T> iterateAllIssues(String jql, String queryExtension, Function<IssueAccess, T> creator) {
+        return new IssueIterator<T>(jql, searchQueryExtension(queryExtension), creator);
+    }
+
+    private static String searchQueryExtension(String queryExtension) {
         if (!queryExtension.contains("fields=")) {
         	queryExtension += "&fields=*all";
         }
 		if (!queryExtension.contains("maxResults=")) {
 			queryExtension += "&maxResults=100";
 		}
-		do {
-			var paging = issues != null && issues.nextPageToken != null ? "&nextPageToken=" + issues.nextPageToken : "";
-			issues = _loadIssues(jql, queryExtension + paging, creator);
-			ret.addAll(issues.list);
-		} while (issues.nextPageToken != null);
+		return queryExtension;
+    }
+
+    /**
+     * Same as loadAllIssues() but the next page is loaded in the background while the creator runs on the current page.
+     * @param <T> -
+     * @param jql -
+     * @param queryExtension -
+     * @param creator -
+     * @param prefetchPages max number of pages loaded ahead of the creator, 0: no prefetch
+     * @return issues
+     */
+    public <T> List<T> loadAllIssues(String jql, String queryExtension, Function<IssueAccess, T> creator, int prefetchPages) {
+        if (prefetchPages <= 0) {
+            return loadAllIssues(jql, queryExtension, creator);
+        }
+        List<T> ret = new ArrayList<>();
+        try (PrefetchingIssueIterator<T> iter = new PrefetchingIssueIterator<>(jql, searchQueryExtension(queryExtension), creator, prefetchPages)) {
+            iter.forEachRemaining(ret::add);
+        }
+        return ret;
+    }
+
+    /**
+     * Same as streamAllIssues() but up to prefetchPages pages are loaded in the background ahead of the consumer.
+     * Close the stream if it is not consumed completely.
+     * @param <T> -
+     * @param jql -
+     * @param queryExtension -
+     * @param creator -
+     * @param prefetchPages max number of pages loaded ahead of the consumer, 0: no prefetch
+     * @return issues, sequential and ordered
+     */
+    public <T> Stream<T> streamAllIssues(String jql, String queryExtension, Function<IssueAccess, T> creator, int prefetchPages) {
+        if (prefetchPages <= 0) {
+            return streamAllIssues(jql, queryExtension, creator);
+        }
+        PrefetchingIssueIterator<T> iter = new PrefetchingIssueIterator<>(jql, searchQueryExtension(queryExtension), creator, prefetchPages);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iter, Spliterator.ORDERED), false).onClose(iter::close);
+    }
+
+    /**
+     * Splits the JQL into non-overlapping sub-queries (shards) and loads them in parallel.
+     * @param <T> -
+     * @param jql -
+     * @param queryExtension -
+     * @param creator must be thread-safe
+     * @param shards conditions, see JqlShards. They must not overlap, else issues are returned more than once.
+     * @param workers number of parallel requests
+     * @param keepOrder true: result is ordered by shard and the JQL order within the shard,
+     *                  false: shard results are appended as they are finished
+     * @return issues
+     */
+    public <T> List<T> loadAllIssuesSharded(String jql, String queryExtension, Function<IssueAccess, T> creator,
+            List<String> shards, int workers, boolean keepOrder) {
+        Function<String, List<T>> loader = shard -> loadAllIssues(JqlShards.restrict(jql, shard), queryExtension, creator);
+        if (keepOrder) {
+            return Workers.map(shards, workers, loader).stream().flatMap(List::stream).collect(Collectors.toList());
+        }
+        List<T> ret = new ArrayList<>();
+        Workers.each(shards, workers, loader, (index, list) -> ret.addAll(list));
         return ret;
     }
 
     private <T> Issues<T> _loadIssues(String jql, String queryExtension, Function<IssueAccess, T> creator) {
-    	final Issues<T> ret = new Issues<T>();
+        Issues<JSONObject> page = _loadPage(jql, queryExtension);
+        Issues<T> ret = new Issues<T>();
+        ret.nextPageToken = page.nextPageToken;
+        for (JSONObject issue : page.list) {
+            ret.list.add(creator.apply(new IssueAccess(issue)));
+        }
+        return ret;
+    }
+
+    private Issues<JSONObject> _loadPage(String jql, String queryExtension) {
+    	final Issues<JSONObject> ret;
     	final String path = "/rest/api/3/search/jql?jql=" + urlEncode(jql, "") + queryExtension;
     	final long start = System.currentTimeMillis();
-    	HttpResponse<JsonNode> response = null;
-    	long wait = 1;
-    	boolean again;
-    	do {
-    	    again = false;
-            response = get(path);
-            int status = response.getStatus();
-            if (status == 429/*rate limit*/ && wait < 10) {
-                System.err.println(
-                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) +
-                        " _loadIssues(" + path + ") waiting " + wait + "\" because rate limit...");
-                try {
-                    Thread.sleep(wait * 1000);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException("Error loading issues. Status is " + status + " (InterruptedException)");
-                }
-                wait *= 2; // 1 .. 2 .. 4 .. 8
-                again = true;
-            } else if (status >= 300) {
-            	lastError = response.getBody().toPrettyString();
-                throw new RuntimeException("Error loading issues. Status is " + status);
-            }
-    	} while (again);
-        JsonNode json = response.getBody();
+    	JsonResponse<Issues<JSONObject>> response = getJson(path, JiraCloudAccess::readIssues); // rate limit is handled by send()
+    	int status = response.status;
+    	if (status >= 300) {
+    		lastError = response.error;
+    		throw new RuntimeException("Error loading issues. Status is " + status);
+    	}
+    	ret = response.value;
         if (debugMode) {
-            System.out.println(json.toPrettyString());
-        }
-        boolean isLastPage = json.getObject().optBoolean("isLast", true);
-        if (!isLastPage) {
-        	ret.nextPageToken = json.getObject().optString("nextPageToken", null);
-        }
-        for (Object issue0 : json.getObject().getJSONArray("issues")) {
-            ret.list.add(creator.apply(new IssueAccess((JSONObject) issue0)));
+            ret.list.forEach(issue -> System.out.println(issue.toString(2)));
         }
 
         if (showAccess) {
@@ -143,36 +371,570 @@ public class JiraCloudAccess {
     	final List<T> list = new ArrayList<T>();
     	String nextPageToken;
     }
+
+    /**
+     * Reads a search page in one pass. Each issue is parsed on its own, the response is never held as String.
+     */
+    private static Issues<JSONObject> readIssues(JsonReader in) throws IOException {
+        Issues<JSONObject> ret = new Issues<>();
+        boolean isLastPage = true;
+        String nextPageToken = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else if ("issues".equals(name)) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    ret.list.add(new JSONObject((Object) JsonParser.parseReader(in)));
+                }
+                in.endArray();
+            } else if ("isLast".equals(name)) {
+                isLastPage = in.nextBoolean();
+            } else if ("nextPageToken".equals(name)) {
+                nextPageToken = in.nextString();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        if (!isLastPage) {
+            ret.nextPageToken = nextPageToken;
+        }
+        return ret;
+    }
+
+    private class IssueIterator<T> implements Iterator<T> {
+        private final String jql;
+        private final String queryExtension;
+        private final Function<IssueAccess, T> creator;
+        private Iterator<T> page;
+        private String nextPageToken;
+        private boolean lastPage = false;
+
+        IssueIterator(String jql, String queryExtension, Function<IssueAccess, T> creator) {
+            this.jql = jql;
+            this.queryExtension = queryExtension;
+            this.creator = creator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((page == null || !page.hasNext()) && !lastPage) {
+                page = null; // release consumed page before loading the next one
+                var paging = nextPageToken != null ? "&nextPageToken=" + nextPageToken : "";
+                Issues<T> issues = _loadIssues(jql, queryExtension + paging, creator);
+                nextPageToken = issues.nextPageToken;
+                lastPage = nextPageToken == null;
+                page = issues.list.iterator();
+            }
+            return page != null && page.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+    }
+
+    /**
+     * A background thread loads the pages one after another (token paging is sequential) and stays up to
+     * prefetchPages pages ahead of the consumer. The creator is called by the consumer thread.
+     */
+    private class PrefetchingIssueIterator<T> implements Iterator<T>, AutoCloseable {
+        private static final Object END = new Object();
+        private final Function<IssueAccess, T> creator;
+        private final BlockingQueue<Object> pages;
+        private final Thread loader;
+        private Iterator<JSONObject> page;
+        private boolean done = false;
+
+        PrefetchingIssueIterator(String jql, String queryExtension, Function<IssueAccess, T> creator, int prefetchPages) {
+            this.creator = creator;
+            pages = new ArrayBlockingQueue<>(prefetchPages);
+            loader = new Thread(() -> load(jql, queryExtension), "jira-prefetch");
+            loader.setDaemon(true);
+            loader.start();
+        }
+
+        private void load(String jql, String queryExtension) {
+            try {
+                Issues<JSONObject> issues = null;
+                try {
+                    do {
+                        var paging = issues != null ? "&nextPageToken=" + issues.nextPageToken : "";
+                        issues = _loadPage(jql, queryExtension + paging);
+                        pages.put(issues);
+                    } while (issues.nextPageToken != null);
+                    pages.put(END);
+                } catch (Throwable e) { // also Error, otherwise the consumer would wait forever
+                    pages.put(e);
+                }
+            } catch (InterruptedException e) { // closed by consumer
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((page == null || !page.hasNext()) && !done) {
+                page = null; // release consumed page
+                Object next;
+                try {
+                    next = pages.take();
+                } catch (InterruptedException e) {
+                    close();
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Error loading issues (InterruptedException)");
+                }
+                if (next == END) {
+                    done = true;
+                } else if (next instanceof Throwable t) {
+                    done = true;
+                    if (t instanceof RuntimeException e) {
+                        throw e;
+                    } else if (t instanceof Error e) {
+                        throw e;
+                    }
+                    throw new RuntimeException("Error loading issues", t);
+                } else {
+                    @SuppressWarnings("unchecked")
+                    Issues<JSONObject> issues = (Issues<JSONObject>) next;
+                    page = issues.list.iterator();
+                }
+            }
+            return page != null && page.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return creator.apply(new IssueAccess(page.next()));
+        }
+
+        @Override
+        public void close() {
+            done = true;
+            page = null;
+            loader.interrupt();
+            pages.clear();
+        }
+    }
     
     public List<Changelog> loadHistory(String key) {
-        List<Changelog> ret = new ArrayList<>(), list;
-        do {
-            list = _loadHistory(key, "&startAt=" + ret.size() /* 0 based */ + "&maxResults=100");
-            ret.addAll(list);
-        } while (!list.isEmpty());
-        return ret;
+        return loadAllPages("/rest/api/3/issue/" + key + "/changelog", 100, "loading issues", this::_loadHistory);
     }
     
-    private List<Changelog> _loadHistory(String key, String queryExtension) {
+    private List<Changelog> _loadHistory(JSONObject json) {
         List<Changelog> ret = new ArrayList<>();
-        HttpResponse<JsonNode> response = get("/rest/api/3/issue/" + key + "/changelog" + queryExtension);
-        if (response.getStatus() >= 300) {
-            throw new RuntimeException("Error loading issues. Status is " + response.getStatus());
-        }
-        JsonNode json = response.getBody();
-        if (debugMode) {
-            System.out.println(json.toPrettyString());
-        }
-        for (Object i : json.getObject().getJSONArray("values")) {
-            for (Object j : ((JSONObject) i).getJSONArray("items")) {
+        for (Object i : json.getJSONArray("values")) {
+            JSONObject h = (JSONObject) i;
+            Instant created = Changelog.parseTime(h.optString("created", null));
+            JSONObject a = h.optJSONObject("author");
+            String author = a == null ? null : a.optString("displayName", null);
+            for (Object j : h.getJSONArray("items")) {
                 JSONObject d = (JSONObject) j;
                 ret.add(new Changelog((String) d.query("/field"), (String) d.query("/fromString"),
-                        (String) d.query("/toString")));
+                        (String) d.query("/toString"), created, author));
             }
         }
         return ret;
     }
-    
+
+    /**
+     * Loads the history of many issues with the bulk changelog endpoint (up to 1000 issues per request).
+     * Keys that do not exist or are not visible are skipped, they keep an empty list.
+     * @param keys issue keys
+     * @param fieldIds only history of these fields, e.g. "status", "fixVersions"; no fieldIds: all fields
+     * @return history by issue key, in order of keys. Keys of moved issues are the new keys.
+     */
+    public Map<String, List<Changelog>> loadHistories(Collection<String> keys, String... fieldIds) {
+        Map<String, List<Changelog>> ret = new LinkedHashMap<>();
+        keys.forEach(key -> ret.put(key, new ArrayList<>()));
+        streamHistories(keys, Arrays.asList(fieldIds), (key, entry) -> ret.computeIfAbsent(key, k -> new ArrayList<>()).add(entry));
+        return ret;
+    }
+
+    /**
+     * Streaming variant of loadHistories(). The history of an issue can span several responses, so the consumer
+     * can be called several times for an issue. Issues without history are not passed to the consumer.
+     * Keys that do not exist or are not visible are skipped.
+     * @param keys issue keys
+     * @param fieldIds only history of these fields, empty: all fields
+     * @param consumer gets issue key and the next part of its history, called on the caller thread
+     */
+    public void loadHistories(Collection<String> keys, Collection<String> fieldIds, BiConsumer<String, List<Changelog>> consumer) {
+        List<Changelog> part = new ArrayList<>();
+        String[] partKey = { null };
+        streamHistories(keys, fieldIds, (key, entry) -> {
+            if (!key.equals(partKey[0]) && !part.isEmpty()) {
+                consumer.accept(partKey[0], new ArrayList<>(part));
+                part.clear();
+            }
+            partKey[0] = key;
+            part.add(entry);
+        });
+        if (!part.isEmpty()) {
+            consumer.accept(partKey[0], part);
+        }
+    }
+
+    /**
+     * Pushes each history entry to the consumer while the responses are parsed. Nothing is collected, so the memory usage
+     * does not depend on the number of issues. The entries of an issue come in chronological order.
+     * See TimeInStatus and StatusTransitions for aggregators.
+     * Jira answers with issue IDs, so the keys are resolved with loadIssuesByKeys() first. Keys that do not exist
+     * or are not visible are skipped.
+     * @param keys issue keys
+     * @param fieldIds only history of these fields, e.g. "status"; empty: all fields
+     * @param consumer gets issue key and history entry (with created and author), called on the caller thread
+     */
+    public void streamHistories(Collection<String> keys, Collection<String> fieldIds, BiConsumer<String, Changelog> consumer) {
+        Map<String, String> keyById = loadIssueIds(keys);
+        List<String> ids = new ArrayList<>(keyById.keySet());
+        for (int i = 0; i < ids.size(); i += BULK_CHANGELOG_SIZE) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("issueIdsOrKeys", ids.subList(i, Math.min(i + BULK_CHANGELOG_SIZE, ids.size())));
+            if (!fieldIds.isEmpty()) {
+                body.put("fieldIds", fieldIds);
+            }
+            body.put("maxResults", BULK_CHANGELOG_SIZE);
+            String nextPageToken = null;
+            do {
+                if (nextPageToken != null) {
+                    body.put("nextPageToken", nextPageToken);
+                }
+                JsonResponse<String> response = readJson(http.post(url + "/rest/api/3/changelog/bulkfetch")
+                        .headers(jsonBodyHeaders)
+                        .body(GSON.toJson(body)),
+                        reader -> readChangelogs(reader, keyById, consumer));
+                if (response.status >= 300) {
+                    lastError = response.error;
+                    throw new RuntimeException("Error loading histories. Status is " + response.status);
+                }
+                nextPageToken = response.value;
+            } while (nextPageToken != null);
+        }
+    }
+
+    /**
+     * @param keys issue keys
+     * @return key by issue ID, without keys that do not exist or are not visible
+     */
+    private Map<String, String> loadIssueIds(Collection<String> keys) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> list = new ArrayList<>(new LinkedHashSet<>(keys));
+        for (int i = 0; i < list.size(); i += KEYS_PER_SEARCH) {
+            chunks.add(list.subList(i, Math.min(i + KEYS_PER_SEARCH, list.size())));
+        }
+        Map<String, String> ret = new LinkedHashMap<>();
+        IssueQuery query = new IssueQuery("").fields("id");
+        Workers.each(chunks, 4, chunk -> loadIssuesByKeyChunk(chunk, query, IssueAccess::getJSONObject, null),
+                (index, issues) -> issues.forEach(issue -> ret.put(issue.getString("id"), issue.getString("key"))));
+        return ret;
+    }
+
+    /**
+     * Loads issues with "key in (...)" searches of up to 100 keys. Jira rejects the whole JQL (status 400) if one of the keys
+     * does not exist or is not visible. Then the keys named in the error message are left out and the search is repeated.
+     * Other errors are thrown.
+     * @param <T> -
+     * @param keys issue keys
+     * @param query fields and expand, the JQL is not used
+     * @param creator -
+     * @param unknownKeys null or set that receives the keys that do not exist or are not visible
+     * @return issues found. Moved issues have their new key.
+     */
+    public <T> List<T> loadIssuesByKeys(Collection<String> keys, IssueQuery query, Function<IssueAccess, T> creator,
+            Set<String> unknownKeys) {
+        List<String> list = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<T> ret = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += KEYS_PER_SEARCH) {
+            ret.addAll(loadIssuesByKeyChunk(list.subList(i, Math.min(i + KEYS_PER_SEARCH, list.size())), query, creator, unknownKeys));
+        }
+        return ret;
+    }
+
+    private <T> List<T> loadIssuesByKeyChunk(List<String> keys, IssueQuery query, Function<IssueAccess, T> creator,
+            Set<String> unknownKeys) {
+        List<String> chunk = new ArrayList<>(keys);
+        String queryExtension = searchQueryExtension(query.toQueryExtension());
+        while (!chunk.isEmpty()) {
+            String jql = "key in (" + chunk.stream().map(k -> "\"" + k + "\"").collect(Collectors.joining(",")) + ")";
+            List<T> ret = new ArrayList<>();
+            String nextPageToken = null;
+            JsonResponse<Issues<JSONObject>> response;
+            do {
+                response = getJson("/rest/api/3/search/jql?jql=" + urlEncode(jql, "") + queryExtension
+                        + (nextPageToken == null ? "" : "&nextPageToken=" + nextPageToken), JiraCloudAccess::readIssues);
+                if (response.status >= 300) {
+                    break;
+                }
+                response.value.list.forEach(issue -> ret.add(creator.apply(new IssueAccess(issue))));
+                nextPageToken = response.value.nextPageToken;
+            } while (nextPageToken != null);
+            if (response.status < 300) {
+                return ret;
+            }
+            lastError = response.error;
+            List<String> rejected = response.status == 400 ? keysInError(chunk, response.error) : List.of();
+            if (rejected.isEmpty()) {
+                throw new RuntimeException("Error loading issues. Status is " + response.status);
+            }
+            chunk.removeAll(rejected);
+            if (unknownKeys != null) {
+                synchronized (unknownKeys) {
+                    unknownKeys.addAll(rejected);
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * The error message of a JQL validation error quotes the unknown keys, e.g. "An issue with key 'ABC-1' does not exist
+     * for field 'key'." The text depends on the user language, so only the quoted keys are evaluated.
+     * @return keys of chunk that are named in the error message
+     */
+    private static List<String> keysInError(List<String> chunk, String error) {
+        List<String> ret = new ArrayList<>();
+        if (error != null) {
+            String e = error.replace("\\u0027", "'").toUpperCase(); // Gson escapes ' when pretty printing
+            for (String key : chunk) {
+                if (e.contains("'" + key.toUpperCase() + "'")) {
+                    ret.add(key);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Reads a bulk changelog response and passes the history of each issue to the consumer.
+     * @return nextPageToken, null if last page
+     */
+    private static String readChangelogs(JsonReader reader, Map<String, String> keyById,
+            BiConsumer<String, Changelog> consumer) throws IOException {
+        String nextPageToken = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("issueChangeLogs".equals(name)) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String issueId = null;
+                    List<Changelog> list = new ArrayList<>();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String n = reader.nextName();
+                        if ("issueId".equals(n)) {
+                            issueId = reader.nextString();
+                        } else if ("changeHistories".equals(n)) {
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                readChangeHistory(reader, list);
+                                if (issueId != null) { // usual case: issueId before changeHistories
+                                    String key = keyById.getOrDefault(issueId, issueId);
+                                    list.forEach(entry -> consumer.accept(key, entry));
+                                    list.clear();
+                                }
+                            }
+                            reader.endArray();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    String key = keyById.getOrDefault(issueId, issueId);
+                    list.forEach(entry -> consumer.accept(key, entry));
+                }
+                reader.endArray();
+            } else if ("nextPageToken".equals(name) && reader.peek() == JsonToken.STRING) {
+                nextPageToken = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return nextPageToken;
+    }
+
+    /**
+     * Reads one change history (created, author, items) and adds its items to list.
+     */
+    private static void readChangeHistory(JsonReader reader, List<Changelog> list) throws IOException {
+        Instant created = null;
+        String author = null;
+        List<String[]> items = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+            case "created":
+                if (reader.peek() == JsonToken.NUMBER) { // bulk fetch: epoch seconds or millis
+                    long time = reader.nextLong();
+                    created = time < 100_000_000_000L ? Instant.ofEpochSecond(time) : Instant.ofEpochMilli(time);
+                } else {
+                    created = Changelog.parseTime(nextStringOrNull(reader));
+                }
+                break;
+            case "author":
+                author = readDisplayName(reader);
+                break;
+            case "items":
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String[] item = new String[3];
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                        case "field": item[0] = nextStringOrNull(reader); break;
+                        case "fromString": item[1] = nextStringOrNull(reader); break;
+                        case "toString": item[2] = nextStringOrNull(reader); break;
+                        default: reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    items.add(item);
+                }
+                reader.endArray();
+                break;
+            default:
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        for (String[] item : items) {
+            list.add(new Changelog(item[0], item[1], item[2], created, author));
+        }
+    }
+
+    private static String readDisplayName(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String ret = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("displayName".equals(reader.nextName())) {
+                ret = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return ret;
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * All requests go through this method. It waits for the rate limiter and repeats the request
+     * if the server answers with 429 (too many requests).
+     * @param <T> -
+     * @param request -
+     * @param call executes the request, e.g. HttpRequest::asJson
+     * @return response, may have status 429 if the request has failed too often
+     */
+    <T> HttpResponse<T> send(HttpRequest<?> request, Function<HttpRequest<?>, HttpResponse<T>> call) {
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire();
+            HttpResponse<T> response = call.apply(request);
+            long wait = rateLimiter.update(response.getStatus(), response.getHeaders());
+            if (response.getStatus() != 429/*rate limit*/ || attempt >= MAX_ATTEMPTS) {
+                return response;
+            }
+            System.err.println(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + " "
+                    + request.getHttpMethod() + " " + request.getUrl() + " waiting " + wait + "ms because rate limit...");
+        }
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @param rateLimiter not null, can be shared between JiraCloudAccess instances of the same Jira site
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        if (rateLimiter == null) {
+            throw new IllegalArgumentException("rateLimiter must not be null");
+        }
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * GET request with JSON response. The response is bound directly from the response stream in one pass.
+     * @param <T> -
+     * @param path -
+     * @param binder e.g. type adapter
+     * @return status, value (null if status >= 300) and error text (if status >= 300)
+     */
+    private <T> JsonResponse<T> getJson(String path, JsonBinder<T> binder) {
+        if (debugMode) {
+            System.out.println(url + path);
+        }
+        return readJson(http.get(url + path).headers(jsonHeaders), binder);
+    }
+
+    /**
+     * Sends the request and binds the JSON response in one pass from the response stream.
+     * @param <T> -
+     * @param request -
+     * @param binder reads the response if the status is less than 300
+     * @return status, value or error
+     */
+    private <T> JsonResponse<T> readJson(HttpRequest<?> request, JsonBinder<T> binder) {
+        HttpResponse<JsonResponse<T>> response = send(request, r -> r.asObject(raw -> {
+            JsonResponse<T> ret = new JsonResponse<>();
+            ret.status = raw.getStatus();
+            if (ret.status >= 300) {
+                ret.error = prettyPrint(raw.getContentAsString());
+                return ret;
+            }
+            try (JsonReader reader = new JsonReader(new InputStreamReader(raw.getContent(), StandardCharsets.UTF_8))) {
+                ret.value = binder.read(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return ret;
+        }));
+        if (response.getBody() == null) { // e.g. parsing error
+            throw new RuntimeException("Error reading " + request.getUrl() + ". Status is " + response.getStatus(),
+                    response.getParsingError().orElse(null));
+        }
+        return response.getBody();
+    }
+
+    private static String prettyPrint(String json) {
+        try {
+            return PRETTY_GSON.toJson(JsonParser.parseString(json));
+        } catch (RuntimeException e) {
+            return json;
+        }
+    }
+
+    private interface JsonBinder<T> {
+        T read(JsonReader reader) throws IOException;
+    }
+
+    private static class JsonResponse<T> {
+        int status;
+        T value;
+        String error;
+    }
+
     /**
      * @param path -
      * @return JSON
@@ -181,7 +943,57 @@ public class JiraCloudAccess {
         if (debugMode) {
             System.out.println(url + path);
         }
-        return Unirest.get(url + path).header("Accept", "application/json").header("Authorization", auth).asJson();
+        return send(http.get(url + path).headers(jsonHeaders), HttpRequest::asJson);
+    }
+
+    /**
+     * Loads all pages of a startAt/maxResults endpoint. The first page tells total and the page size granted by the server.
+     * The other pages are loaded in parallel (PAGE_WORKERS) and the values are returned in order.
+     * Endpoints without total are paged sequentially until isLast or an empty page.
+     * @param <T> -
+     * @param path without startAt and maxResults
+     * @param pageSize requested maxResults
+     * @param action for the error message, e.g. "loading field options"
+     * @param reader reads the items of one page
+     * @return items of all pages
+     */
+    private <T> List<T> loadAllPages(String path, int pageSize, String action, Function<JSONObject, List<T>> reader) {
+        String prefix = path + (path.contains("?") ? "&" : "?") + "startAt=";
+        Function<Integer, JSONObject> loadPage = startAt -> {
+            HttpResponse<JsonNode> response = get(prefix + startAt + "&maxResults=" + pageSize);
+            if (response.getStatus() >= 300) {
+                throw new RuntimeException("Error " + action + ". Status is " + response.getStatus());
+            }
+            if (debugMode) {
+                System.out.println(response.getBody().toPrettyString());
+            }
+            return response.getBody().getObject();
+        };
+        JSONObject page = loadPage.apply(0);
+        List<T> ret = new ArrayList<>(reader.apply(page));
+        int n = page.getJSONArray("values").length();
+        if (n == 0 || page.optBoolean("isLast", false)) {
+            return ret;
+        }
+        int step = Math.max(1, page.optInt("maxResults", n));
+        if (page.has("total")) {
+            List<Integer> offsets = new ArrayList<>();
+            for (int startAt = step; startAt < page.getInt("total"); startAt += step) {
+                offsets.add(startAt);
+            }
+            for (JSONObject p : Workers.map(offsets, PAGE_WORKERS, loadPage)) {
+                ret.addAll(reader.apply(p));
+            }
+            return ret;
+        }
+        for (int startAt = n; ; startAt += n) {
+            page = loadPage.apply(startAt);
+            ret.addAll(reader.apply(page));
+            n = page.getJSONArray("values").length();
+            if (n == 0 || page.optBoolean("isLast", false)) {
+                return ret;
+            }
+        }
     }
 
     public static String urlEncode(String text, String fallback) {
@@ -196,8 +1008,15 @@ public class JiraCloudAccess {
     }
 
     public byte[] loadImage(String src) {
+        if (imageCache != null) {
+            byte[] ret = imageCache.read(loadImageToCache(src), Files::readAllBytes);
+            if (showAccess) {
+                System.err.println("\t\tloadImage (cache) " + src + ", " + ret.length);
+            }
+            return ret;
+        }
         String imageUrl = src.contains("https://") ? src : (url + src);
-        HttpResponse<byte[]> response = Unirest.get(imageUrl).header("Authorization", auth).asBytes();
+        HttpResponse<byte[]> response = send(http.get(imageUrl).header("Authorization", auth), HttpRequest::asBytes);
         if (response.getStatus() >= 300) {
             throw new RuntimeException("Error loading image. Status is " + response.getStatus());
         }
@@ -208,40 +1027,177 @@ public class JiraCloudAccess {
         return ret;
     }
 
+    /**
+     * Streams the image into the file without holding it in memory.
+     * @param src -
+     * @param target file, will be overwritten
+     */
+    public void loadImageTo(String src, Path target) {
+        try {
+            if (imageCache != null) {
+                imageCache.read(loadImageToCache(src), file -> Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING));
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                loadImageTo(src, channel);
+            } catch (RuntimeException e) {
+                Files.deleteIfExists(target);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Streams the image into the channel using a fixed size buffer.
+     * @param src -
+     * @param target channel, will not be closed
+     * @return number of bytes written
+     */
+    public long loadImageTo(String src, WritableByteChannel target) {
+        if (imageCache != null) {
+            return imageCache.read(loadImageToCache(src), file -> {
+                try (InputStream in = Files.newInputStream(file)) {
+                    return copy(in, target);
+                }
+            });
+        }
+        String imageUrl = src.contains("https://") ? src : (url + src);
+        IOException[] copyError = { null };
+        HttpResponse<Long> response = send(http.get(imageUrl).header("Authorization", auth), r -> r.asObject(raw -> {
+            if (raw.getStatus() >= 300) {
+                return null;
+            }
+            try {
+                return copy(raw.getContent(), target);
+            } catch (IOException e) {
+                copyError[0] = e; // Unirest would only keep it as parsing error
+                return null;
+            }
+        }));
+        if (copyError[0] != null) {
+            throw new UncheckedIOException("Error loading image " + src, copyError[0]);
+        } else if (response.getStatus() >= 300 || response.getBody() == null) {
+            throw new RuntimeException("Error loading image. Status is " + response.getStatus());
+        }
+        if (showAccess) {
+            System.err.println("\t\tloadImageTo " + src + ", " + response.getBody());
+        }
+        return response.getBody();
+    }
+
+    private static long copy(InputStream in, WritableByteChannel out) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(in);
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long ret = 0;
+        while (source.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                ret += out.write(buffer);
+            }
+            buffer.clear();
+        }
+        return ret;
+    }
+
+    /**
+     * Images without ETag and Last-Modified are taken from the cache without request.
+     * Other images are revalidated with a conditional request.
+     * @param src -
+     * @return pinned cache entry, call imageCache.read()
+     */
+    private ImageCache.Entry loadImageToCache(String src) {
+        ImageCache.Entry cached = imageCache.get(src);
+        if (cached != null && !cached.canRevalidate()) {
+            return cached;
+        }
+        String imageUrl = src.contains("https://") ? src : (url + src);
+        HttpRequest<?> request = http.get(imageUrl).header("Authorization", auth);
+        if (cached != null && cached.etag != null) {
+            request = request.header("If-None-Match", cached.etag);
+        }
+        if (cached != null && cached.lastModified != null) {
+            request = request.header("If-Modified-Since", cached.lastModified);
+        }
+        ImageCache.Entry ret = null;
+        try {
+            HttpResponse<ImageCache.Entry> response = send(request, r -> r.asObject(raw -> {
+                String etag = raw.getHeaders().getFirst("ETag");
+                String lastModified = raw.getHeaders().getFirst("Last-Modified");
+                if (raw.getStatus() == 304 && cached != null) {
+                    imageCache.revalidated(src, cached, emptyToNull(etag), emptyToNull(lastModified));
+                    return cached;
+                } else if (raw.getStatus() >= 300) {
+                    return null;
+                }
+                return imageCache.put(src, raw.getContent(), emptyToNull(etag), emptyToNull(lastModified));
+            }));
+            ret = response.getBody();
+            if (ret == null) {
+                throw new RuntimeException("Error loading image. Status is " + response.getStatus());
+            }
+            return ret;
+        } finally {
+            if (cached != null && ret != cached) { // image has changed or error
+                imageCache.release(cached);
+            }
+        }
+    }
+
+    private static String emptyToNull(String s) {
+        return s == null || s.isEmpty() ? null : s;
+    }
+
+    public ImageCache getImageCache() {
+        return imageCache;
+    }
+
+    /**
+     * @param imageCache null: no cache (default), can be shared between JiraCloudAccess instances
+     */
+    public void setImageCache(ImageCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
     public class IssueAccess {
         private JSONObject jo;
         private long loadtime = System.currentTimeMillis();
+        /** values of COMMON_FIELDS, UNRESOLVED if not yet read */
+        private final Object[] common = new Object[COMMON_FIELDS.length];
         
         public IssueAccess(JSONObject issue) {
             jo = issue;
+            Arrays.fill(common, UNRESOLVED);
         }
         
         /**
          * @return ticket number
          */
         public String getKey() {
-            return text("/key");
+            return common(KEY);
         }
 
         /**
          * @return ticket title (aka summary)
          */
         public String getTitle() {
-        	return text("/fields/summary");
+        	return common(SUMMARY);
         }
         
         /**
          * @return e.g. "In Progress"
          */
         public String getStatus() {
-            return text("/fields/status/name");
+            return common(STATUS);
         }
         
         /**
          * @return e.g. "Done", can be empty but not null
          */
         public String getResolution() {
-        	String ret = text("/fields/resolution/name");
+        	String ret = common(RESOLUTION);
         	return ret == null ? "" : ret;
         }
         
@@ -249,14 +1205,14 @@ public class JiraCloudAccess {
          * @return ticket type, e.g. Story
          */
         public String getType() {
-            return text("/fields/issuetype/name");
+            return common(ISSUETYPE);
         }
         
         /**
          * @return e.g. "2024-09-25T15:03:45.400+0200"
          */
         public String getCreated() {
-        	return text("/fields/created");
+        	return common(CREATED);
         }
 
         /**
@@ -264,23 +1220,35 @@ public class JiraCloudAccess {
          * @return e.g. "2024-11-18T09:47:42.978+0100"
          */
         public String getUpdated() {
-        	return text("/fields/updated");
+        	return common(UPDATED);
         }
 
         /**
          * @return name of person who creates the issue
          */
         public String getReporter() {
-            return text("/fields/reporter/displayName");
+            return text(REPORTER);
         }
         
     	public String getAssignee() {
-    		return text("/fields/assignee/displayName");
+    		return text(ASSIGNEE);
     	}
         
         public String getMinervaGTC() {
         	return text("/fields/" + cf_minervaGtc);
         }
+
+        /**
+         * Common fields are read once and cached until updateFrom() is called.
+         */
+        private String common(int index) {
+            Object ret = common[index];
+            if (ret == UNRESOLVED) {
+                ret = COMMON_FIELDS[index].text(jo);
+                common[index] = ret;
+            }
+            return (String) ret;
+        }
         
         public TreeSet<String> getLabels() {
             return array("fields", "labels", "$i");
@@ -307,8 +1275,9 @@ public class JiraCloudAccess {
                         ret.add(array.getString(i));
                     }
                 } else {
+                    FieldPath path = FieldPath.of(field);
                     for (Object entry : array) {
-                        ret.add((String) ((JSONObject) entry).query(field));
+                        ret.add(path.text((JSONObject) entry));
                     }
                 }
             }
@@ -320,11 +1289,15 @@ public class JiraCloudAccess {
          * @return plain text
          */
         public String text(String path) {
-            try {
-                return (String) jo.query(path);
-            } catch (Exception e) {
-                return null;
-            }
+            return FieldPath.of(path).text(jo);
+        }
+
+        /**
+         * @param path compiled path
+         * @return plain text, null if path does not exist or is not a text
+         */
+        public String text(FieldPath path) {
+            return path.text(jo);
         }
         
         /**
@@ -342,12 +1315,18 @@ public class JiraCloudAccess {
          */
         public String doc(String path) {
             if (isPlainText(path)) {
-                return (String) jo.query(path + "/content/0/content/0/text");
+                return text(path + "/content/0/content/0/text");
             }
 
             int o = path.lastIndexOf("/");
             String fieldname = path.substring(o + 1);
 
+            // Was the search expanded with renderedFields? (see IssueQuery.renderedFields())
+            JSONObject renderedFields = jo.optJSONObject("renderedFields");
+            if (renderedFields != null && renderedFields.has(fieldname) && path.equals("/fields/" + fieldname)) {
+                return text("/renderedFields/" + fieldname);
+            }
+
             String jql = "issue=\"" + text("/key") + "\"";
             List<IssueAccess> r = loadAllIssues(jql, "&expand=renderedFields&fields=" + fieldname, i -> i);
             if (r.size() != 1) {
@@ -361,12 +1340,14 @@ public class JiraCloudAccess {
          * @return true if plain text, false if HTML
          */
         public boolean isPlainText(String path) {
-            JSONArray contents = (JSONArray) jo.query(path + "/content");
+            if (!(FieldPath.of(path + "/content").get(jo) instanceof JSONArray contents)) {
+                throw new JSONPointerException("Content field does not exist: " + path);
+            }
             if (contents.length() == 1) {
             	String pp = path + "/content/0/";
-            	JSONArray subContents = (JSONArray) jo.query(pp + "content");
-        		String type = (String) jo.query(pp + "type");
-            	return subContents.length() == 1 && "paragraph".equals(type);
+            	Object subContents = FieldPath.of(pp + "content").get(jo);
+        		String type = text(pp + "type");
+            	return subContents instanceof JSONArray a && a.length() == 1 && "paragraph".equals(type);
             }
             return false;
         }
@@ -419,12 +1400,16 @@ public class JiraCloudAccess {
 
 		protected List<String> getLinkedIssue(String outwardType, String expr1, String expr2, String expr3) {
 			List<String> ret = new ArrayList<>();
-			for (Object i : (JSONArray) jo.query(expr1)) {
-				JSONObject o = (JSONObject) i;
-				if (outwardType.equals(o.query(expr2))) {
-					try {
-						ret.add(((String) o.query(expr3)));
-					} catch (Exception ignore) {
+			if (FieldPath.of(expr1).get(jo) instanceof JSONArray links) {
+				FieldPath type = FieldPath.of(expr2);
+				FieldPath key = FieldPath.of(expr3);
+				for (Object i : links) {
+					JSONObject o = (JSONObject) i;
+					if (outwardType.equals(type.text(o))) {
+						String k = key.text(o);
+						if (k != null) {
+							ret.add(k);
+						}
 					}
 				}
 			}
@@ -450,6 +1435,7 @@ public class JiraCloudAccess {
 		public void updateFrom(IssueAccess other) {
 			jo = other.jo;
 			loadtime = other.loadtime;
+			Arrays.fill(common, UNRESOLVED);
 		}
     }
     
@@ -482,12 +1468,9 @@ public class JiraCloudAccess {
                 }
             }
             """.replace("$a", fixversionJSON);
-        HttpResponse<JsonNode> response = Unirest.put(url + "/rest/api/3/issue/" + ticketNr) //
-                .header("Accept", "application/json") //
-                .header("Content-type", "application/json") //
-                .header("Authorization", auth) //
-                .body(body)
-                .asJson();
+        HttpResponse<JsonNode> response = send(http.put(url + "/rest/api/3/issue/" + ticketNr) //
+                .headers(jsonBodyHeaders) //
+                .body(body), HttpRequest::asJson);
         String res = response.getBody().toString();
         if (res.contains("Version name") && res.contains("is not valid")) {
             throw new JiraVersionNotExistException();
@@ -509,14 +1492,11 @@ public class JiraCloudAccess {
             throw new IllegalArgumentException();
         }
         List<String> ret = new ArrayList<>();
-        HttpResponse<JsonNode> response = Unirest.get(url + "/rest/api/3/issue/" + ticketNr) //
-                .header("Accept", "application/json") //
-                .header("Authorization", auth) //
-                .asJson();
-        if (response.getStatus() >= 300) {
-            throw new RuntimeException("Status is " + response.getStatus());
+        JsonResponse<Issue> response = getJson("/rest/api/3/issue/" + ticketNr, ISSUE::read);
+        if (response.status >= 300) {
+            throw new RuntimeException("Status is " + response.status);
         }
-        Issue ticket = new Gson().fromJson(response.getBody().toString(), Issue.class);
+        Issue ticket = response.value;
         for (FixVersion fv : ticket.fields.fixVersions) {
             ret.add(fv.name);
         }
@@ -543,12 +1523,9 @@ public class JiraCloudAccess {
                 .replace("$d", description)
                 .replace("$n", version)
                 .replace("$p", projectId);
-        HttpResponse<JsonNode> response = Unirest.post(url + "/rest/api/3/version") //
-                .header("Accept", "application/json") //
-                .header("Content-type", "application/json") //
-                .header("Authorization", auth) //
-                .body(body)
-                .asJson();
+        HttpResponse<JsonNode> response = send(http.post(url + "/rest/api/3/version") //
+                .headers(jsonBodyHeaders) //
+                .body(body), HttpRequest::asJson);
         if (response.getStatus() >= 300) {
             String msg = response.getBody().toPrettyString();
             if (msg.contains("already exists")) {
@@ -565,29 +1542,39 @@ public class JiraCloudAccess {
     public String getProjectId(String ticketNr) {
         int o = ticketNr.indexOf("-");
         String p = ticketNr.substring(0, o);
-        HttpResponse<JsonNode> response = Unirest.get(url + "/rest/api/3/project/" + p) //
-                .header("Accept", "application/json") //
-                .header("Authorization", auth) //
-                .asJson();
-        if (response.getStatus() >= 300) {
-            lastError = response.getBody().toPrettyString();
-            throw new RuntimeException("Status is " + response.getStatus());
+        JsonResponse<Project> response = getJson("/rest/api/3/project/" + p, PROJECT::read);
+        if (response.status >= 300) {
+            lastError = response.error;
+            throw new RuntimeException("Status is " + response.status);
         }
-        Project project = new Gson().fromJson(response.getBody().toString(), Project.class);
-        return project.id;
+        return response.value.id;
     }
     
+    /**
+     * @param key issue key
+     * @param query fields and expand of this query are requested, the JQL is not used
+     * @return issue, null if it does not exist (404)
+     */
+    public IssueAccess loadIssue(String key, IssueQuery query) {
+        String u = "/rest/api/3/issue/" + urlEncode(key, key) + query.toQueryExtension().replaceFirst("^&", "?");
+        HttpResponse<JsonNode> response = get(u);
+        if (response.getStatus() == 404) {
+            return null;
+        } else if (response.getStatus() >= 300) {
+            lastError = "Error loading issue using " + url + u;
+            throw new RuntimeException("Can not load Jira issue. Status is " + response.getStatus());
+        }
+        return new IssueAccess(response.getBody().getObject());
+    }
+
     public Ticket2 loadTicket(String ticketNr) {
-        String u = url + "/rest/api/3/issue/" + ticketNr;
-        HttpResponse<JsonNode> response = Unirest.get(u) //
-                .header("Accept", "application/json") //
-                .header("Authorization", auth) //
-                .asJson();
-        if (response.getStatus() >= 300) {
-            lastError = "Error loading ticket using " + u + "\n" + response.getBody().toPrettyString();
-            throw new RuntimeException("Can not load Jira ticket. Status is " + response.getStatus());
+        String u = "/rest/api/3/issue/" + ticketNr;
+        JsonResponse<Issue> response = getJson(u, ISSUE::read);
+        if (response.status >= 300) {
+            lastError = "Error loading ticket using " + url + u + "\n" + response.error;
+            throw new RuntimeException("Can not load Jira ticket. Status is " + response.status);
         }
-        Issue ticket = new Gson().fromJson(response.getBody().toString(), Issue.class);
+        Issue ticket = response.value;
 
         Ticket2 ret = new Ticket2();
         ret.key = ticket.key;
@@ -611,26 +1598,19 @@ public class JiraCloudAccess {
 
     // called by JiraVersions
     public List<Version> getProjectVersions(String project) {
-        HttpResponse<JsonNode> response = Unirest.get(url + "/rest/api/3/project/" + project + "/versions") //
-                .header("Accept", "application/json") //
-                .header("Authorization", auth) //
-                .asJson();
-        if (response.getStatus() >= 300) {
-            lastError = response.getBody().toPrettyString();
-            throw new RuntimeException("Status is " + response.getStatus() + ". See log.");
+        JsonResponse<ArrayList<Version>> response = getJson("/rest/api/3/project/" + project + "/versions", VERSIONS::read);
+        if (response.status >= 300) {
+            lastError = response.error;
+            throw new RuntimeException("Status is " + response.status + ". See log.");
         }
-        java.lang.reflect.Type type = new TypeToken<ArrayList<Version>>() {}.getType();
-        return new Gson().fromJson(response.getBody().toString(), type);
+        return response.value;
     }
     
     // called by JiraVersions
     public void setProjectVersionReleased(String versionId) {
-        HttpResponse<JsonNode> response = Unirest.put(url + "/rest/api/3/version/" + versionId) //
-                .header("Content-type", "application/json") //
-                .header("Accept", "application/json") //
-                .header("Authorization", auth) //
-                .body("{\"released\":true}") //
-                .asJson();
+        HttpResponse<JsonNode> response = send(http.put(url + "/rest/api/3/version/" + versionId) //
+                .headers(jsonBodyHeaders) //
+                .body("{\"released\":true}"), HttpRequest::asJson);
         if (response.getStatus() >= 300) {
         	lastError = response.getBody().toPrettyString();
             throw new RuntimeException("Status is " + response.getStatus() + ". See log.");
@@ -638,12 +1618,9 @@ public class JiraCloudAccess {
     }
     
     public void setMinervaGtc(String ticketNumber, String content) {
-		HttpResponse<JsonNode> response = Unirest.put(url + "/rest/api/3/issue/" + ticketNumber)
-		        .header("Content-type", "application/json") //
-		        .header("Accept", "application/json") //
-		        .header("Authorization", auth) //
-		        .body("{\"fields\":{\"" + cf_minervaGtc + "\":\"" + content + "\"}}")
-		        .asJson();
+		HttpResponse<JsonNode> response = send(http.put(url + "/rest/api/3/issue/" + ticketNumber)
+		        .headers(jsonBodyHeaders) //
+		        .body("{\"fields\":{\"" + cf_minervaGtc + "\":\"" + content + "\"}}"), HttpRequest::asJson);
         if (response.getStatus() >= 300) {
 			lastError = response.getBody().toPrettyString();
 			throw new RuntimeException(
@@ -672,28 +1649,17 @@ public class JiraCloudAccess {
 	}
 
 	public List<FieldOption> loadFieldOptions(String customFieldID, String contextID, boolean sort) {
-        List<FieldOption> ret = new ArrayList<>(), list;
-        do {
-            list = _loadFieldOptions(customFieldID, contextID, "?startAt=" + ret.size());
-            ret.addAll(list);
-        } while (!list.isEmpty());
+        List<FieldOption> ret = loadAllPages("/rest/api/3/field/customfield_" + customFieldID + "/context/" + contextID + "/option",
+                100, "loading field options", this::_loadFieldOptions);
         if (sort) {
         	ret.sort((a, b) -> a.getValue().compareTo(b.getValue()));
         }
         return ret;
     }
 
-    private List<FieldOption> _loadFieldOptions(String customFieldID, String contextID, String queryExtension) {
+    private List<FieldOption> _loadFieldOptions(JSONObject json) {
         List<FieldOption> ret = new ArrayList<>();
-        HttpResponse<JsonNode> response = get("/rest/api/3/field/customfield_" + customFieldID + "/context/" + contextID + "/option" + queryExtension);
-        if (response.getStatus() >= 300) {
-            throw new RuntimeException("Error loading field options. Status is " + response.getStatus());
-        }
-        JsonNode json = response.getBody();
-        if (debugMode) {
-            System.out.println(json.toPrettyString());
-        }
-        for (Object i0 : json.getObject().getJSONArray("values")) {
+        for (Object i0 : json.getJSONArray("values")) {
             JSONObject i = (JSONObject) i0; 
             FieldOption o = new FieldOption();
             o.setId(i.getString("id"));
@@ -704,35 +1670,70 @@ public class JiraCloudAccess {
         return ret;
     }
     
+    /**
+     * Creates field options in chunks of 1000, one chunk after the other, so the options keep the order of the list.
+     * Stops at the first failed chunk.
+     * @param customFieldID e.g. cf_featuresID
+     * @param contextID e.g. CID
+     * @param options values of the new options
+     */
     public void createFieldOptions(String customFieldID, String contextID, List<String> options) {
-        String m = url + "/rest/api/3/field/customfield_" + customFieldID + "/context/" + contextID + "/option";
-        for (int i = 0; i < options.size(); i += 1000) { // paging with size 1000
-            int to = i + 1000;
-            if (to > options.size()) {
-                to = options.size();
+        for (int i = 0; i < options.size(); i += 1000) { // max 1000 options per request
+            ChunkResult chunk = createFieldOptionsChunk(customFieldID, contextID, options, i);
+            if (!chunk.isOk()) {
+                lastError = chunk.getError();
+                throw new RuntimeException("Error creating field options. Status is " + chunk.getStatus() + " ("
+                        + chunk.getFrom() + " to " + (chunk.getFrom() + chunk.getItems().size()) + ")");
             }
-            String body = "{\"options\": [" + options.subList(i, to).stream()
-                    .map(o -> "{\"value\":\"" + o.replace("\"", "\\\"") + "\"}").collect(Collectors.joining(","))
-                    + "]}";
-            HttpResponse<JsonNode> response = Unirest.post(m) //
-                    .header("Accept", "application/json") //
-                    .header("Content-type", "application/json") //
-                    .header("Authorization", auth) //
-                    .body(body) //
-                    .asJson();
-            if (response.getStatus() >= 300) {
-                throw new RuntimeException("Error creating field options. Status is " + response.getStatus() + " (" + i + " to " + to + ")");
+        }
+    }
+
+    /**
+     * Creates field options in chunks of 1000, several chunks at the same time. A failed chunk does not stop the other chunks.
+     * Jira appends the options in order of creation, so with parallelism &gt; 1 and more than 1000 options the order
+     * of the options does not follow the list.
+     * @param customFieldID e.g. cf_featuresID
+     * @param contextID e.g. CID
+     * @param options values of the new options
+     * @param parallelism max number of requests at the same time
+     * @return result of each chunk, in order. Retry a failed chunk with its getItems().
+     */
+    public List<ChunkResult> createFieldOptions(String customFieldID, String contextID, List<String> options, int parallelism) {
+        List<Integer> chunks = new ArrayList<>();
+        for (int i = 0; i < options.size(); i += 1000) { // max 1000 options per request
+            chunks.add(i);
+        }
+        return Workers.map(chunks, parallelism, i -> createFieldOptionsChunk(customFieldID, contextID, options, i));
+    }
+
+    private ChunkResult createFieldOptionsChunk(String customFieldID, String contextID, List<String> options, int from) {
+        String m = url + "/rest/api/3/field/customfield_" + customFieldID + "/context/" + contextID + "/option";
+        List<String> chunk = options.subList(from, Math.min(from + 1000, options.size()));
+        HttpResponse<String> response = send(http.post(m) //
+                .headers(jsonBodyHeaders) //
+                .body(createFieldOptionsBody(chunk)), HttpRequest::asString);
+        return new ChunkResult(from, chunk, response.getStatus(),
+                response.getStatus() >= 300 ? prettyPrint(response.getBody()) : null);
+    }
+
+    private static byte[] createFieldOptionsBody(List<String> options) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(options.size() * 32 + 16);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8))) {
+            writer.beginObject().name("options").beginArray();
+            for (String option : options) {
+                writer.beginObject().name("value").value(option).endObject();
             }
+            writer.endArray().endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return body.toByteArray();
     }
     
     public void deleteFieldOption(String customFieldID, String contextID, String id) {
         String m = url + "/rest/api/3/field/customfield_" + customFieldID + "/context/" + contextID + "/option/" + id;
-        HttpResponse<JsonNode> response = Unirest.delete(m) //
-                .header("Accept", "application/json") //
-                .header("Content-type", "application/json") //
-                .header("Authorization", auth) //
-                .asJson();
+        HttpResponse<JsonNode> response = send(http.delete(m) //
+                .headers(jsonBodyHeaders), HttpRequest::asJson);
         if (response.getStatus() >= 300) {
             throw new RuntimeException("Error deleting field option " + id + ". Status is " + response.getStatus());
         }
@@ -740,20 +1741,88 @@ public class JiraCloudAccess {
     
     public void disableFieldOptions(String customFieldID, String contextID, List<String> idList, boolean disabled) {
         String m = url + "/rest/api/3/field/customfield_" + customFieldID + "/context/" + contextID + "/option";
-        String body = "{\"options\":[" //
-                + idList.stream().map(i -> "{\"disabled\":" + disabled + ",\"id\":\"" + i + "\"}")
-                        .collect(Collectors.joining(",")) //
-                + "]}";
-        HttpResponse<JsonNode> response = Unirest.put(m) //
-                .header("Accept", "application/json") //
-                .header("Content-type", "application/json") //
-                .header("Authorization", auth) //
-                .body(body) //
-                .asJson();
-        if (response.getStatus() >= 300) {
-			throw new RuntimeException("Error " + (disabled ? "disabling" : "enabling") + " field options. Status is "
-					+ response.getStatus());
+        for (int i = 0; i < idList.size(); i += 1000) { // max 1000 options per request
+            String body = "{\"options\":[" //
+                    + idList.subList(i, Math.min(i + 1000, idList.size())).stream()
+                            .map(id -> "{\"disabled\":" + disabled + ",\"id\":\"" + id + "\"}")
+                            .collect(Collectors.joining(",")) //
+                    + "]}";
+            HttpResponse<JsonNode> response = send(http.put(m) //
+                    .headers(jsonBodyHeaders) //
+                    .body(body), HttpRequest::asJson);
+            if (response.getStatus() >= 300) {
+                throw new RuntimeException("Error " + (disabled ? "disabling" : "enabling") + " field options. Status is "
+                        + response.getStatus());
+            }
+        }
+    }
+
+    /**
+     * Synchronizes the options of a field context with the desired values. The current options are loaded once.
+     * Missing values are created, disabled options with desired values are enabled and enabled options
+     * that are not desired anymore are disabled or deleted. Create, enable and disable are sent in chunks of 1000 options.
+     * Jira has no bulk delete, so deletes are sent one by one (4 in parallel).
+     * @param customFieldID e.g. cf_featuresID
+     * @param contextID e.g. CID
+     * @param desiredOptions values that should be enabled options
+     * @param deleteRemoved true: delete options that are not desired (also disabled ones), false: disable them
+     * @return changes
+     */
+    public FieldOptionChanges syncFieldOptions(String customFieldID, String contextID, Collection<String> desiredOptions,
+            boolean deleteRemoved) {
+        FieldOptionChanges ret = new FieldOptionChanges();
+        Set<String> desired = new LinkedHashSet<>(desiredOptions);
+        for (FieldOption o : loadFieldOptions(customFieldID, contextID, false)) {
+            if (desired.remove(o.getValue())) {
+                if (o.isDisabled()) {
+                    ret.getEnabled().add(o);
+                }
+            } else if (deleteRemoved) {
+                ret.getDeleted().add(o);
+            } else if (!o.isDisabled()) {
+                ret.getDisabled().add(o);
+            }
+        }
+        ret.getCreated().addAll(desired);
+        if (!ret.getCreated().isEmpty()) {
+            createFieldOptions(customFieldID, contextID, ret.getCreated());
+            ret.addRequests(chunks(ret.getCreated().size(), 1000));
+        }
+        if (!ret.getEnabled().isEmpty()) {
+            disableFieldOptions(customFieldID, contextID, ids(ret.getEnabled()), false);
+            ret.addRequests(chunks(ret.getEnabled().size(), 1000));
+        }
+        if (!ret.getDisabled().isEmpty()) {
+            disableFieldOptions(customFieldID, contextID, ids(ret.getDisabled()), true);
+            ret.addRequests(chunks(ret.getDisabled().size(), 1000));
+        }
+        if (!ret.getDeleted().isEmpty()) {
+            Workers.map(ids(ret.getDeleted()), 4, id -> {
+                deleteFieldOption(customFieldID, contextID, id);
+                return id;
+            });
+            ret.addRequests(ret.getDeleted().size());
         }
+        return ret;
+    }
+
+    /**
+     * syncFieldOptions() with disabling options that are not desired anymore
+     * @param customFieldID e.g. cf_featuresID
+     * @param contextID e.g. CID
+     * @param desiredOptions values that should be enabled options
+     * @return changes
+     */
+    public FieldOptionChanges syncFieldOptions(String customFieldID, String contextID, Collection<String> desiredOptions) {
+        return syncFieldOptions(customFieldID, contextID, desiredOptions, false);
+    }
+
+    private static List<String> ids(List<FieldOption> options) {
+        return options.stream().map(FieldOption::getId).collect(Collectors.toList());
+    }
+
+    private static int chunks(int size, int chunkSize) {
+        return (size + chunkSize - 1) / chunkSize;
     }
 
     /**
@@ -772,16 +1841,48 @@ public class JiraCloudAccess {
     	if (debugMode) {
     		System.out.println(m + "\n" + body);
     	}
-    	HttpResponse<JsonNode> response = Unirest.put(m) //
-                .header("Accept", "application/json") //
-		        .header("Content-type", "application/json") //
-		        .header("Authorization", auth) //
-		        .body(body) //
-		        .asJson();
+    	HttpResponse<JsonNode> response = send(http.put(m) //
+		        .headers(jsonBodyHeaders) //
+		        .body(body), HttpRequest::asJson);
     	if (response.getStatus() >= 300) {
     		throw new RuntimeException("Error moving field options. Status is " + response.getStatus());
     	}
     }
+
+    /**
+     * Reorders field options with few move requests. Options that are already in the right order relative
+     * to each other are not moved, see FieldOptionMoves.
+     * @param customFieldID e.g. cf_featuresID
+     * @param contextID e.g. CID
+     * @param targetIds option IDs in target order
+     * @return number of move requests
+     */
+    public int reorderFieldOptions(String customFieldID, String contextID, List<String> targetIds) {
+        List<String> currentIds = ids(loadFieldOptions(customFieldID, contextID, false));
+        List<FieldOptionMoves.Move> moves = FieldOptionMoves.plan(currentIds, targetIds);
+        for (FieldOptionMoves.Move move : moves) {
+            moveFieldOptions(customFieldID, contextID, move.getIds(), move.getActionFieldName(), move.getActionValue());
+        }
+        return moves.size();
+    }
+
+    /**
+     * Sorts field options with few move requests.
+     * @param customFieldID e.g. cf_featuresID
+     * @param contextID e.g. CID
+     * @param order e.g. Comparator.comparing(FieldOption::getValue)
+     * @return number of move requests
+     */
+    public int sortFieldOptions(String customFieldID, String contextID, Comparator<FieldOption> order) {
+        List<FieldOption> options = loadFieldOptions(customFieldID, contextID, false);
+        List<String> currentIds = ids(options);
+        options.sort(order);
+        List<FieldOptionMoves.Move> moves = FieldOptionMoves.plan(currentIds, ids(options));
+        for (FieldOptionMoves.Move move : moves) {
+            moveFieldOptions(customFieldID, contextID, move.getIds(), move.getActionFieldName(), move.getActionValue());
+        }
+        return moves.size();
+    }
     
     /**
      * @param ticketNr e.g. "XDEV-4711"
@@ -790,12 +1891,9 @@ public class JiraCloudAccess {
     public void saveFeatureNumbers(String ticketNr, Set<String> featureNumbers) {
         String json = featureNumbers.stream().map(fn -> "{\"value\": \"" + fn + "\"}").collect(Collectors.joining(", "));
         String body = "{\"fields\": { \"" + cf_features + "\": [" + json + "]}}";
-        HttpResponse<JsonNode> response = Unirest.put(url + "/rest/api/3/issue/" + ticketNr) //
-                .header("Accept", "application/json") //
-                .header("Content-type", "application/json") //
-                .header("Authorization", auth) //
-                .body(body)
-                .asJson();
+        HttpResponse<JsonNode> response = send(http.put(url + "/rest/api/3/issue/" + ticketNr) //
+                .headers(jsonBodyHeaders) //
+                .body(body), HttpRequest::asJson);
         if (response.getStatus() >= 300) {
             String m = response.getBody().toPrettyString();
             if (m.contains("Issue does not exist")) {
@@ -813,26 +1911,85 @@ public class JiraCloudAccess {
      * @return all Confluence pages
      */
     public PageTitles loadAllConfluencePages() {
+        PageTitles ret = new PageTitles();
+        ret.setPageTitles(loadConfluencePages("/wiki/api/v2/pages?limit=250"));
+        return ret;
+    }
+
+    /**
+     * Loads the pages of each space on its own worker. Crawl time depends on the largest space.
+     * @param threads max number of spaces loaded at the same time
+     * @return all Confluence pages, grouped by space
+     */
+    public PageTitles loadAllConfluencePages(int threads) {
+        List<String> spaceIds = new ArrayList<>();
+        String path = "/wiki/api/v2/spaces?limit=250";
+        do {
+            JsonResponse<Pages> response = getJson(path, PAGES::read); // only the space IDs are needed
+            if (response.status >= 300) {
+                throw new RuntimeException("Error loading Confluence spaces. Status is " + response.status);
+            }
+            response.value.getResults().forEach(space -> spaceIds.add(space.getId()));
+            path = response.value.get_links() == null ? null : response.value.get_links().getNext();
+        } while (path != null);
         PageTitles ret = new PageTitles();
         ret.setPageTitles(new ArrayList<>());
-        String path = "/wiki/api/v2/pages";
+        Workers.each(spaceIds, threads, id -> loadConfluencePages("/wiki/api/v2/spaces/" + id + "/pages?limit=250"),
+                (index, pages) -> ret.getPageTitles().addAll(pages));
+        return ret;
+    }
+
+    /**
+     * @param path first page of a v2 page list
+     * @return pages of all cursor pages
+     */
+    private List<PageTitle> loadConfluencePages(String path) {
+        List<PageTitle> ret = new ArrayList<>();
         do {
-            HttpResponse<JsonNode> response = get(path);
-            if (response.getStatus() >= 300) {
-                throw new RuntimeException("Error loading Confluence pages. Status is " + response.getStatus());
+            JsonResponse<Pages> response = getJson(path, PAGES::read);
+            if (response.status >= 300) {
+                throw new RuntimeException("Error loading Confluence pages. Status is " + response.status);
             }
-            Pages pages = new Gson().fromJson(response.getBody().toString(), Pages.class);
+            Pages pages = response.value;
             pages.getResults().stream().forEach(page -> {
                 PageTitle p = new PageTitle();
                 p.setId(page.getId());
                 p.setTiny(page.get_links().getTinyui());
                 p.setTitle(page.getTitle());
-                ret.getPageTitles().add(p);
+                ret.add(p);
             });
             path = pages.get_links().getNext();
         } while (path != null);
         return ret;
     }
+
+    /**
+     * @param time millis
+     * @return Confluence pages modified since time (with one minute overlap), see ConfluencePageIndex
+     */
+    List<PageTitle> loadConfluencePagesModifiedSince(long time) {
+        List<PageTitle> ret = new ArrayList<>();
+        String path = "/wiki/rest/api/content/search?limit=250&cql="
+                + urlEncode("type=page AND lastmodified >= now(\"-" + IssueQuery.minutesSince(time) + "m\")", "");
+        do {
+            JsonResponse<Pages> response = getJson(path, PAGES::read);
+            if (response.status >= 300) {
+                lastError = response.error;
+                throw new RuntimeException("Error loading modified Confluence pages. Status is " + response.status);
+            }
+            Pages pages = response.value;
+            pages.getResults().forEach(page -> {
+                PageTitle p = new PageTitle();
+                p.setId(page.getId());
+                p.setTiny(page.get_links() == null ? null : page.get_links().getTinyui());
+                p.setTitle(page.getTitle());
+                ret.add(p);
+            });
+            String next = pages.get_links() == null ? null : pages.get_links().getNext();
+            path = next == null ? null : "/wiki" + next; // v1 links are relative to /wiki
+        } while (path != null);
+        return ret;
+    }
     
     @Deprecated
     public String getConfluencePageTitle(String pURL, List<PageTitle> pageTitles) {
@@ -850,14 +2007,7 @@ public class JiraCloudAccess {
                     }
                 }
             }
-            HttpResponse<JsonNode> response = get("/wiki/api/v2/pages/" + id);
-            if (response.getStatus() == 404) {
-                return null; // page not found
-            } else if (response.getStatus() >= 300) {
-                throw new RuntimeException("Error loading Confluence page title. ID is " + id + ", status is " + response.getStatus());
-            }
-            ConfluencePage page = new Gson().fromJson(response.getBody().toString(), ConfluencePage.class);
-            return page.getTitle();
+            return loadConfluencePageTitleById(id);
         } else if (pURL.contains(".atlassian.net/wiki/x/")) {
         	if (pageTitles == null) {
         		throw new RuntimeException("pageTitles must not be null");
@@ -904,15 +2054,88 @@ public class JiraCloudAccess {
 		return id;
 	}
 
+    /**
+     * The tiny link is the base64 encoded page ID (little endian, '-' instead of '/', '_' instead of '+', trailing 'A' removed).
+     * @param pURL tiny link URL or tiny ID, e.g. "/x/B4ANDQ"
+     * @return Confluence page ID, e.g. "218988551", or null
+     */
+    public static String getConfluencePageIdFromTiny(String pURL) {
+        int o = pURL.indexOf("/x/");
+        if (o < 0) {
+            return null;
+        }
+        String tiny = pURL.substring(o + "/x/".length()).replaceAll("[/?#].*$", "").replace('-', '/').replace('_', '+');
+        if (tiny.isEmpty()) {
+            return null;
+        }
+        while (tiny.length() % 4 != 0) {
+            tiny += "A";
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(tiny);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        long id = 0;
+        for (int i = Math.min(bytes.length, 8) - 1; i >= 0; i--) {
+            id = (id << 8) | (bytes[i] & 0xFF);
+        }
+        return Long.toUnsignedString(id);
+    }
+
+    /**
+     * Loads the titles of many pages with few requests (250 pages per request, 4 requests in parallel).
+     * @param idsOrUrls page IDs, page URLs or tiny link URLs
+     * @return title by element of idsOrUrls, in order. Title is null if the page does not exist.
+     */
+    public Map<String, String> loadConfluencePageTitles(Collection<String> idsOrUrls) {
+        Map<String, String> idByInput = new LinkedHashMap<>();
+        for (String input : idsOrUrls) {
+            String id = getConfluencePageId1(input);
+            if (id == null) {
+                id = getConfluencePageIdFromTiny(input);
+            }
+            if (id == null && input.matches("\\d+")) {
+                id = input;
+            }
+            if (id == null) {
+                throw new IllegalArgumentException("Unsupported URL: " + input);
+            }
+            idByInput.put(input, id);
+        }
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(idByInput.values()));
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += 250) {
+            chunks.add(ids.subList(i, Math.min(i + 250, ids.size())));
+        }
+        Map<String, String> titleById = new HashMap<>();
+        Workers.each(chunks, 4, chunk -> {
+            Map<String, String> titles = new HashMap<>();
+            String path = "/wiki/api/v2/pages?limit=250&id=" + String.join(",", chunk);
+            do {
+                JsonResponse<Pages> response = getJson(path, PAGES::read);
+                if (response.status >= 300) {
+                    throw new RuntimeException("Error loading Confluence page titles. Status is " + response.status);
+                }
+                response.value.getResults().forEach(page -> titles.put(page.getId(), page.getTitle()));
+                path = response.value.get_links() == null ? null : response.value.get_links().getNext();
+            } while (path != null);
+            return titles;
+        }, (index, titles) -> titleById.putAll(titles));
+        Map<String, String> ret = new LinkedHashMap<>();
+        idByInput.forEach((input, id) -> ret.put(input, titleById.get(id)));
+        return ret;
+    }
+
     public String loadConfluencePageTitleById(String id) {
-        HttpResponse<JsonNode> response = get("/wiki/api/v2/pages/" + id);
-        if (response.getStatus() == 404) {
+        JsonResponse<ConfluencePage> response = getJson("/wiki/api/v2/pages/" + id, CONFLUENCE_PAGE::read);
+        if (response.status == 404) {
             return null; // page not found
-        } else if (response.getStatus() >= 300) {
-            throw new RuntimeException("Error loading Confluence page title. ID is " + id + ", status is " + response.getStatus());
+        } else if (response.status >= 300) {
+            throw new RuntimeException("Error loading Confluence page title. ID is " + id + ", status is " + response.status);
         }
-        ConfluencePage page = new Gson().fromJson(response.getBody().toString(), ConfluencePage.class);
-        return page.getTitle();
+        return response.value.getTitle();
     }
     
     public static boolean isConfluenceUrl(String pURL) {
@@ -0,0 +1,178 @@
+package de.xmap.jiracloud;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import de.xmap.jiracloud.Issue.Version;
+import de.xmap.jiracloud.JiraCloudAccess.IssueAccess;
+
+/**
+ * Asynchronous facade for JiraCloudAccess. Each call runs as a task on the executor, at most maxConcurrentTasks
+ * tasks run at the same time. Further tasks wait in a queue and are handed to the executor when a running task
+ * has finished, so the number of threads is bounded by maxConcurrentTasks. The default executor uses virtual threads if the Java runtime supports them
+ * (Java 21+), otherwise a cached pool of daemon threads.
+ * All requests still go through the rate limiter of the JiraCloudAccess.
+ */
+public class JiraCloudAsync {
+    private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+    private final JiraCloudAccess jira;
+    private final Executor executor;
+    private final Semaphore permits;
+    /** submitted tasks waiting for a permit */
+    private final Queue<Task<?>> waiting = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Default executor and max 64 concurrent tasks
+     * @param jira -
+     */
+    public JiraCloudAsync(JiraCloudAccess jira) {
+        this(jira, 64);
+    }
+
+    /**
+     * @param jira -
+     * @param maxConcurrentTasks max number of calls running at the same time
+     */
+    public JiraCloudAsync(JiraCloudAccess jira, int maxConcurrentTasks) {
+        this(jira, DEFAULT_EXECUTOR, maxConcurrentTasks);
+    }
+
+    /**
+     * @param jira -
+     * @param executor -
+     * @param maxConcurrentTasks max number of calls running at the same time
+     */
+    public JiraCloudAsync(JiraCloudAccess jira, Executor executor, int maxConcurrentTasks) {
+        if (maxConcurrentTasks < 1) {
+            throw new IllegalArgumentException("maxConcurrentTasks must be at least 1");
+        }
+        this.jira = jira;
+        this.executor = executor;
+        permits = new Semaphore(maxConcurrentTasks);
+    }
+
+    public JiraCloudAccess getJiraCloudAccess() {
+        return jira;
+    }
+
+    public <T> CompletableFuture<List<T>> loadAllIssues(String jql, String queryExtension, Function<IssueAccess, T> creator) {
+        return supply(j -> j.loadAllIssues(jql, queryExtension, creator));
+    }
+
+    public <T> CompletableFuture<List<T>> loadAllIssues(IssueQuery query, Function<IssueAccess, T> creator) {
+        return supply(j -> j.loadAllIssues(query, creator));
+    }
+
+    public CompletableFuture<Ticket2> loadTicket(String ticketNr) {
+        return supply(j -> j.loadTicket(ticketNr));
+    }
+
+    public CompletableFuture<List<String>> getFixVersions(String ticketNr) {
+        return supply(j -> j.getFixVersions(ticketNr));
+    }
+
+    public CompletableFuture<List<Version>> getProjectVersions(String project) {
+        return supply(j -> j.getProjectVersions(project));
+    }
+
+    public CompletableFuture<List<Changelog>> loadHistory(String key) {
+        return supply(j -> j.loadHistory(key));
+    }
+
+    public CompletableFuture<byte[]> loadImage(String src) {
+        return supply(j -> j.loadImage(src));
+    }
+
+    public CompletableFuture<String> loadConfluencePageTitleById(String id) {
+        return supply(j -> j.loadConfluencePageTitleById(id));
+    }
+
+    public CompletableFuture<PageTitles> loadAllConfluencePages() {
+        return supply(JiraCloudAccess::loadAllConfluencePages);
+    }
+
+    /**
+     * Runs any JiraCloudAccess call asynchronously, e.g. <code>async.supply(j -> j.getProjectId("XDEV-1"))</code>
+     * @param <T> result type
+     * @param call -
+     * @return future, completes exceptionally with the RuntimeException of the call
+     */
+    public <T> CompletableFuture<T> supply(Function<JiraCloudAccess, T> call) {
+        Task<T> task = new Task<>(call);
+        waiting.add(task);
+        dispatch();
+        return task.future;
+    }
+
+    /**
+     * Hands waiting tasks to the executor as long as permits are free. Waiting tasks do not hold a thread.
+     * Called after each submit and when a worker has no more waiting tasks.
+     */
+    private void dispatch() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Task<?> task = waiting.poll();
+            if (task == null) {
+                permits.release();
+                continue;
+            }
+            try {
+                executor.execute(() -> work(task));
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Runs the task and then the waiting tasks with the same permit and thread.
+     */
+    private void work(Task<?> task) {
+        try {
+            while (task != null) {
+                task.run();
+                task = waiting.poll();
+            }
+        } finally {
+            permits.release();
+            dispatch(); // task submitted between poll() and release()
+        }
+    }
+
+    private class Task<T> {
+        private final Function<JiraCloudAccess, T> call;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(Function<JiraCloudAccess, T> call) {
+            this.call = call;
+        }
+
+        void run() {
+            try {
+                future.complete(call.apply(jira));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static Executor createDefaultExecutor() {
+        try { // Java 21+
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "jira-async");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
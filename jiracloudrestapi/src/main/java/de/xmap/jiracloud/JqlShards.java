@@ -0,0 +1,87 @@
+package de.xmap.jiracloud;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Non-overlapping JQL conditions for JiraCloudAccess.loadAllIssuesSharded()
+ */
+public class JqlShards {
+
+    private JqlShards() {
+    }
+
+    /**
+     * @param projects project keys, e.g. "XDEV"
+     * @return one shard per project
+     */
+    public static List<String> byProject(Collection<String> projects) {
+        return projects.stream().map(p -> "project = \"" + p + "\"").collect(Collectors.toList());
+    }
+
+    /**
+     * The first shard contains all issues created before from, the last shard all issues created at or after to.
+     * So no issue is missed.
+     * @param from first day, inclusive
+     * @param to last day, exclusive
+     * @param step e.g. Period.ofMonths(1)
+     * @return shards by created date
+     */
+    public static List<String> byCreated(LocalDate from, LocalDate to, Period step) {
+        if (!from.plus(step).isAfter(from)) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+        List<String> ret = new ArrayList<>();
+        ret.add("created < \"" + from + "\"");
+        for (LocalDate d = from; d.isBefore(to); d = d.plus(step)) {
+            LocalDate end = d.plus(step).isBefore(to) ? d.plus(step) : to;
+            ret.add("created >= \"" + d + "\" AND created < \"" + end + "\"");
+        }
+        ret.add("created >= \"" + to + "\"");
+        return ret;
+    }
+
+    /**
+     * The last shard contains all issues with a number greater than or equal to maxNumber.
+     * @param project project key, e.g. "XDEV"
+     * @param maxNumber e.g. highest issue number known
+     * @param step numbers per shard
+     * @return shards by issue key
+     */
+    public static List<String> byKeyRange(String project, int maxNumber, int step) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+        List<String> ret = new ArrayList<>();
+        String p = "project = \"" + project + "\"";
+        int n = 1;
+        for (; n + step <= maxNumber; n += step) {
+            ret.add(p + " AND key >= \"" + project + "-" + n + "\" AND key < \"" + project + "-" + (n + step) + "\"");
+        }
+        ret.add(p + " AND key >= \"" + project + "-" + n + "\"");
+        return ret;
+    }
+
+    /**
+     * @param jql JQL, may end with ORDER BY clause
+     * @param shard shard condition
+     * @return JQL restricted to shard
+     */
+    public static String restrict(String jql, String shard) {
+        String where = jql;
+        String orderBy = "";
+        int o = jql.toLowerCase().lastIndexOf("order by");
+        if (o >= 0) {
+            where = jql.substring(0, o).trim();
+            orderBy = " " + jql.substring(o);
+        }
+        if (where.isBlank()) {
+            return shard + orderBy;
+        }
+        return "(" + where + ") AND (" + shard + ")" + orderBy;
+    }
+}
@@ -0,0 +1,155 @@
+package de.xmap.jiracloud;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import kong.unirest.Headers;
+
+/**
+ * Token bucket for all requests of JiraCloudAccess. The rate adapts to the answers of the server:
+ * it is halved on 429 (too many requests) and if Jira reports X-RateLimit-NearLimit, and it increases slowly
+ * with every successful request. Retry-After and an exhausted X-RateLimit-Remaining pause all requests.
+ * Share one instance between parallel workers and JiraCloudAccess instances for the same Jira site.
+ */
+public class RateLimiter {
+    private final double minRate;
+    private final double maxRate;
+    private final double burst;
+    /** requests per second */
+    private double rate;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private long pausedUntil = 0;
+    /** backoff if 429 comes without Retry-After */
+    private long backoff = 1000;
+
+    public RateLimiter() {
+        this(10, 50, 10);
+    }
+
+    /**
+     * @param initialRate requests per second at start
+     * @param maxRate max requests per second
+     * @param burst max number of requests without waiting
+     */
+    public RateLimiter(double initialRate, double maxRate, int burst) {
+        if (initialRate <= 0 || maxRate < initialRate || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate limit");
+        }
+        this.rate = initialRate;
+        this.maxRate = maxRate;
+        this.minRate = Math.min(0.2, initialRate);
+        this.burst = burst;
+        this.tokens = burst;
+    }
+
+    /**
+     * Waits until a request may be sent.
+     */
+    public void acquire() {
+        while (true) {
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                if (pausedUntil - now > 0) {
+                    wait = pausedUntil - now;
+                } else if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                } else {
+                    wait = (long) ((1 - tokens) / rate * 1_000_000_000L);
+                }
+            }
+            try {
+                Thread.sleep(Math.max(1, wait / 1_000_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for rate limit");
+            }
+        }
+    }
+
+    /**
+     * @param status HTTP status of the response
+     * @param headers response headers
+     * @return milliseconds all requests are paused, 0 if not paused
+     */
+    synchronized long update(int status, Headers headers) {
+        long now = System.nanoTime();
+        long pause = 0;
+        if (status == 429) {
+            rate = Math.max(minRate, rate / 2);
+            tokens = 0;
+            pause = retryAfter(headers.getFirst("Retry-After"));
+            if (pause <= 0) {
+                pause = backoff;
+                backoff = Math.min(backoff * 2, 60_000);
+            }
+        } else {
+            backoff = 1000;
+            if ("true".equalsIgnoreCase(headers.getFirst("X-RateLimit-NearLimit"))) {
+                rate = Math.max(minRate, rate / 2);
+            } else if (status < 300) {
+                rate = Math.min(maxRate, rate + 0.1);
+            }
+            if ("0".equals(headers.getFirst("X-RateLimit-Remaining"))) {
+                pause = until(headers.getFirst("X-RateLimit-Reset"));
+            }
+        }
+        if (pause > 0) {
+            pausedUntil = Math.max(pausedUntil, now + pause * 1_000_000L);
+        }
+        return pause;
+    }
+
+    /**
+     * @return current requests per second
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) / 1_000_000_000.0 * rate);
+        lastRefill = now;
+    }
+
+    /**
+     * @param value seconds or HTTP date
+     * @return milliseconds, 0 if unknown
+     */
+    private static long retryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.round(Double.parseDouble(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                return Math.max(0, ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                        - System.currentTimeMillis());
+            } catch (DateTimeParseException e2) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @param value ISO timestamp
+     * @return milliseconds until then, 0 if unknown
+     */
+    private static long until(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, OffsetDateTime.parse(value.trim()).toInstant().toEpochMilli() - Instant.now().toEpochMilli());
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package de.xmap.jiracloud;
 
+import java.util.List;
+
 import de.xmap.jiracloud.JiraCloudAccess.IssueAccess;
 import de.xmap.jiracloud.RawTicket.StaticDocField;
 
@@ -23,7 +25,8 @@ public class RawRNTicket {
 	public static String fieldnamesForQueryExtension() {
 		return  JiraCloudAccess.cf_rnt_de + "," + JiraCloudAccess.cf_rnt_en + "," + //
 				JiraCloudAccess.cf_rns_de + "," + JiraCloudAccess.cf_rns_en + "," + //
-				JiraCloudAccess.cf_rnd_de + "," + JiraCloudAccess.cf_rnd_en;
+				JiraCloudAccess.cf_rnd_de + "," + JiraCloudAccess.cf_rnd_en + "," + //
+				JiraCloudAccess.cf_developmentDescription;
 	}
 
 	public IssueAccess getIssue() {
@@ -38,6 +41,21 @@ public class RawRNTicket {
 		rnd.en().loadAllImagesFromJira(jira);
 	}
 	
+	/**
+	 * @return all release notes doc fields, e.g. for RawTicket.loadAllImagesFromJira(jira, fields, threads)
+	 */
+	public List<StaticDocField> getStaticDocFields() {
+		return List.of(rns.de(), rns.en(), rnd.de(), rnd.en());
+	}
+
+	/**
+	 * @param lang DE or EN
+	 * @return release notes doc fields of the language
+	 */
+	public List<StaticDocField> getStaticDocFields(String lang) {
+		return List.of(rns.get(lang), rnd.get(lang));
+	}
+
 	/**
 	 * @param lang DE or EN
 	 */
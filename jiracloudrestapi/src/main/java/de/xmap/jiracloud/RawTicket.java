@@ -3,7 +3,12 @@ package de.xmap.jiracloud;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -47,6 +52,51 @@ public class RawTicket {
 		changeNotesDescription.loadAllImagesFromJira(jira);
 	}
 
+	/**
+	 * @return all doc fields, e.g. for loadAllImagesFromJira(jira, fields, threads)
+	 */
+	public List<StaticDocField> getStaticDocFields() {
+		return List.of(developmentDescription, changeNotesDescription);
+	}
+
+	/**
+	 * Loads the images of many fields (of many tickets) in parallel. Each image src is loaded only once
+	 * and the image data is shared by all JiraImageImpl with that src.
+	 * @param jira -
+	 * @param fields -
+	 * @param threads max number of parallel downloads
+	 */
+	public static void loadAllImagesFromJira(JiraCloudAccess jira, Collection<StaticDocField> fields, int threads) {
+		Map<String, List<JiraImage>> bySrc = new LinkedHashMap<>();
+		for (StaticDocField field : fields) {
+			if (field.getImages() != null) {
+				for (JiraImage image : field.getImages()) {
+					bySrc.computeIfAbsent(image.getSrc(), src -> new ArrayList<>()).add(image);
+				}
+			}
+		}
+		List<String> srcs = new ArrayList<>();
+		bySrc.forEach((src, images) -> {
+			byte[] loaded = images.stream().map(JiraImage::getImage).filter(Objects::nonNull).findFirst().orElse(null);
+			if (loaded == null) {
+				srcs.add(src);
+			} else {
+				share(images, loaded, jira);
+			}
+		});
+		Workers.each(srcs, threads, jira::loadImage, (index, image) -> share(bySrc.get(srcs.get(index)), image, jira));
+	}
+
+	private static void share(List<JiraImage> images, byte[] image, JiraCloudAccess jira) {
+		for (JiraImage i : images) {
+			if (i instanceof JiraImageImpl impl) {
+				impl.setImage(image);
+			} else {
+				i.loadFromJira(jira);
+			}
+		}
+	}
+
 	public static class StaticDocField {
 		private final boolean plainText;
 		/** plain text or HTML, can be null */
@@ -57,7 +107,7 @@ public class RawTicket {
 		public StaticDocField(IssueAccess issue, String id) {
 			JSONObject jo = issue.getJSONObject();
 			String path = "/fields/" + id;
-			if (jo.query(path) == null) { // Does field exist?
+			if (FieldPath.of(path).get(jo) == null) { // Does field exist?
 				plainText = true;
 				text = null;
 				images = null;
@@ -181,6 +231,12 @@ public class RawTicket {
 		public byte[] getImage() {
 			return image;
 		}
+
+		void setImage(byte[] image) {
+			if (this.image == null) {
+				this.image = image;
+			}
+		}
 		
 		public void save(File file) {
 			try (FileOutputStream w = new FileOutputStream(file)) {
@@ -190,6 +246,20 @@ public class RawTicket {
 			}
 		}
 
+		/**
+		 * Saves the image to the file. If it has not been loaded yet, it is streamed from Jira
+		 * directly into the file without holding it in memory.
+		 * @param jira -
+		 * @param file -
+		 */
+		public void save(JiraCloudAccess jira, File file) {
+			if (image == null) {
+				jira.loadImageTo(src, file.toPath());
+			} else {
+				save(file);
+			}
+		}
+
 		@Override
 		public int hashCode() {
 			return Objects.hash(src);
@@ -1,6 +1,11 @@
 package de.xmap.jiracloud;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import de.xmap.jiracloud.JiraCloudAccess.IssueAccess;
 
@@ -12,7 +17,12 @@ public class ReleaseNoteTicket {
     
     public static List<ReleaseNoteTicket> load(JiraCloudAccess jira, String pageId) {
         String jql = "issuetype=\"Release note ticket\" AND \"Release notes page Ids[Labels]\" in (\"" + pageId + "\")";
-        return jira.loadAllIssues(jql, "", issue -> new ReleaseNoteTicket(issue));
+        return jira.loadAllIssues(new IssueQuery(jql).fields(fieldnamesForQueryExtension()).renderedFields(),
+                issue -> new ReleaseNoteTicket(issue));
+    }
+    
+    public static String fieldnamesForQueryExtension() {
+        return "summary,issuelinks," + RawRNTicket.fieldnamesForQueryExtension();
     }
     
     public ReleaseNoteTicket(IssueAccess issue) {
@@ -113,20 +123,55 @@ public class ReleaseNoteTicket {
         }
         List<IssueAccess> issues;
         try {
-            issues = jira.loadAllIssues("key='" + releaseFor + "'", "", i -> i);
+            issues = jira.loadAllIssues(new IssueQuery("key='" + releaseFor + "'").fields("project,issuetype,customfield_10048"), i -> i);
         } catch (Exception e) {
             return;
         }
         if (issues.size() == 1) {
-            IssueAccess issue = issues.get(0);
-            try {
-                if (project == null || project.equals(issue.text("/fields/project/key"))) { // Project uebereinstimmend?
-                    customerTicketNumber = issue.textne("/fields/customfield_10048"); // Customer project key
-                }
-                releaseFor_issueType = issue.textne("/fields/issuetype/name");
-            } catch (Exception ignore) {
+            setReleaseForIssue(project, issues.get(0));
+        }
+    }
+
+    private void setReleaseForIssue(String project, IssueAccess issue) {
+        try {
+            if (project == null || project.equals(issue.text("/fields/project/key"))) { // Project uebereinstimmend?
+                customerTicketNumber = issue.textne("/fields/customfield_10048"); // Customer project key
+            }
+            releaseFor_issueType = issue.textne("/fields/issuetype/name");
+        } catch (Exception ignore) {
+        }
+    }
+
+    /**
+     * Same as loadCustomerTicketNumberAndType() for all tickets. The "release for" tickets are loaded with
+     * a few "key in (...)" queries instead of one query per ticket (see JiraCloudAccess.loadIssuesByKeys()).
+     * @param tickets -
+     * @param project null if project should not be compared
+     * @param jira -
+     */
+    public static void loadCustomerTicketNumbersAndTypes(List<ReleaseNoteTicket> tickets, String project, JiraCloudAccess jira) {
+        Map<String, List<ReleaseNoteTicket>> byReleaseFor = new LinkedHashMap<>();
+        for (ReleaseNoteTicket t : tickets) {
+            t.customerTicketNumber = null;
+            t.releaseFor_issueType = null;
+            String releaseFor = t.getReleaseFor();
+            if (releaseFor != null && !releaseFor.isBlank()) {
+                byReleaseFor.computeIfAbsent(releaseFor, k -> new ArrayList<>()).add(t);
+            }
+        }
+        Set<String> missing = new HashSet<>(byReleaseFor.keySet());
+        Set<String> unknown = new HashSet<>();
+        for (IssueAccess issue : jira.loadIssuesByKeys(byReleaseFor.keySet(),
+                new IssueQuery("").fields("project,issuetype,customfield_10048"), a -> a, unknown)) {
+            List<ReleaseNoteTicket> list = byReleaseFor.get(issue.getKey());
+            if (list != null) {
+                list.forEach(t -> t.setReleaseForIssue(project, issue));
+                missing.remove(issue.getKey());
             }
         }
+        // moved to another key: load one by one. Unknown keys stay without customer ticket number and type.
+        missing.removeAll(unknown);
+        missing.forEach(key -> byReleaseFor.get(key).forEach(t -> t.loadCustomerTicketNumberAndType(project, jira)));
     }
 
     /**
@@ -14,7 +14,11 @@ public class ReleaseTicket {
 		} else {
 			jql = "issuetype=\"Release\" and project=\"" + project + "\"";
 		}
-        return jira.loadAllIssues(jql, "", issue -> new ReleaseTicket(issue));
+        return jira.loadAllIssues(new IssueQuery(jql).fields(fieldnamesForQueryExtension()), issue -> new ReleaseTicket(issue));
+    }
+    
+    public static String fieldnamesForQueryExtension() {
+        return "summary,customfield_10065,customfield_10066,customfield_10073";
     }
     
     public ReleaseTicket(IssueAccess issue) {
@@ -0,0 +1,39 @@
+package de.xmap.jiracloud;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Incremental aggregator for JiraCloudAccess.streamHistories(): number of status transitions.
+ * Memory usage depends only on the number of different transitions.
+ */
+public class StatusTransitions implements BiConsumer<String, Changelog> {
+    /** key: from status, value: count by to status */
+    private final Map<String, Map<String, Integer>> counts = new TreeMap<>();
+
+    @Override
+    public void accept(String key, Changelog entry) {
+        if ("status".equals(entry.getField())) {
+            counts.computeIfAbsent(String.valueOf(entry.getFrom()), k -> new TreeMap<>())
+                    .merge(String.valueOf(entry.getTo()), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @param from status name
+     * @param to status name
+     * @return number of transitions from -> to
+     */
+    public int getCount(String from, String to) {
+        Map<String, Integer> m = counts.get(from);
+        return m == null ? 0 : m.getOrDefault(to, 0);
+    }
+
+    /**
+     * @return count by to status by from status
+     */
+    public Map<String, Map<String, Integer>> getCounts() {
+        return counts;
+    }
+}
@@ -0,0 +1,78 @@
+package de.xmap.jiracloud;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Incremental aggregator for JiraCloudAccess.streamHistories(): total time per status over all issues.
+ * Only the time between two status changes of an issue is counted, unless issueCreated() and finish() are called.
+ * Memory usage: one entry per issue, independent of the number of history entries.
+ */
+public class TimeInStatus implements BiConsumer<String, Changelog> {
+    /** key: issue key, value: status and time since the issue is in that status */
+    private final Map<String, Object[]> current = new HashMap<>();
+    private final Map<String, Duration> totals = new TreeMap<>();
+    private final Map<String, Integer> visits = new TreeMap<>();
+
+    /**
+     * Optional: the time from creation to the first status change is counted for the initial status.
+     * @param key issue key
+     * @param created creation time of the issue
+     */
+    public void issueCreated(String key, Instant created) {
+        current.putIfAbsent(key, new Object[] { null, created });
+    }
+
+    @Override
+    public void accept(String key, Changelog entry) {
+        if (!"status".equals(entry.getField()) || entry.getCreated() == null) {
+            return;
+        }
+        Object[] c = current.get(key);
+        if (c != null) {
+            add(entry.getFrom(), (Instant) c[1], entry.getCreated());
+        }
+        current.put(key, new Object[] { entry.getTo(), entry.getCreated() });
+    }
+
+    /**
+     * Counts the time in the current status of each issue up to now.
+     * @param now e.g. Instant.now()
+     */
+    public void finish(Instant now) {
+        current.forEach((key, c) -> {
+            if (c[0] != null) {
+                add((String) c[0], (Instant) c[1], now);
+            }
+        });
+        current.clear();
+    }
+
+    private void add(String status, Instant from, Instant to) {
+        if (status == null || to.isBefore(from)) {
+            return;
+        }
+        totals.merge(status, Duration.between(from, to), Duration::plus);
+        visits.merge(status, 1, Integer::sum);
+    }
+
+    /**
+     * @return total time by status name
+     */
+    public Map<String, Duration> getTotals() {
+        return totals;
+    }
+
+    /**
+     * @param status status name
+     * @return average time per stay in that status, zero if unknown status
+     */
+    public Duration getAverage(String status) {
+        Integer n = visits.get(status);
+        return n == null ? Duration.ZERO : totals.get(status).dividedBy(n);
+    }
+}
@@ -0,0 +1,98 @@
+package de.xmap.jiracloud;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Runs tasks with a fixed number of worker threads. The first exception stops all workers and is rethrown.
+ */
+final class Workers {
+
+    private Workers() {
+    }
+
+    /**
+     * @param <T> input type
+     * @param <R> result type
+     * @param items -
+     * @param threads max number of workers
+     * @param function -
+     * @return results in order of items
+     */
+    static <T, R> List<R> map(List<T> items, int threads, Function<T, R> function) {
+        List<R> ret = new ArrayList<>(Collections.nCopies(items.size(), null));
+        each(items, threads, function, ret::set);
+        return ret;
+    }
+
+    /**
+     * @param <T> input type
+     * @param <R> result type
+     * @param items -
+     * @param threads max number of workers
+     * @param function -
+     * @param consumer receives index of item and result in order of completion, called by the calling thread
+     */
+    static <T, R> void each(List<T> items, int threads, Function<T, R> function, BiConsumer<Integer, R> consumer) {
+        if (items.isEmpty()) {
+            return;
+        }
+        if (threads <= 1 || items.size() == 1) {
+            for (int i = 0; i < items.size(); i++) {
+                consumer.accept(i, function.apply(items.get(i)));
+            }
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, items.size()), r -> {
+            Thread t = new Thread(r, "jira-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            CompletionService<Result<R>> cs = new ExecutorCompletionService<>(pool);
+            for (int i = 0; i < items.size(); i++) {
+                final int index = i;
+                cs.submit(() -> new Result<>(index, function.apply(items.get(index))));
+            }
+            for (int i = 0; i < items.size(); i++) {
+                Future<Result<R>> future = cs.take();
+                Result<R> result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException r) {
+                        throw r;
+                    } else if (e.getCause() instanceof Error r) {
+                        throw r;
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+                consumer.accept(result.index, result.value);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for workers");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static class Result<R> {
+        final int index;
+        final R value;
+
+        Result(int index, R value) {
+            this.index = index;
+            this.value = value;
+        }
+    }
+}